@@ -73,12 +73,9 @@ methodDecl locals[boolean isPublic=false, boolean isStatic=false;]
     ;
 
 type locals[boolean isArray=false, boolean isVarArgs=false]
-    : name= INT
-    | name= INT LSQUARE RSQUARE {$isArray=true;}
-    | name= INT ELLIPSIS {$isVarArgs=true;}
+    : name= INT (LSQUARE RSQUARE {$isArray=true;} | ELLIPSIS {$isVarArgs=true;})?
     | name= BOOLEAN
-    | name= STRING
-    | name= STRING LSQUARE RSQUARE {$isArray=true;}
+    | name= STRING (LSQUARE RSQUARE {$isArray=true;})?
     | name= VOID
     | name= ID
     ;
@@ -1,7 +1,9 @@
 package pt.up.fe.comp2024;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -10,6 +12,10 @@ public class CompilerConfig {
     private static final String INPUT_FILE = "inputFile";
     private static final String OPTIMIZE = "optimize";
     private static final String REGISTER = "registerAllocation";
+    private static final String DFA_FLUSH = "dfaFlush";
+    private static final String AST_CACHE = "astCache";
+    private static final String CLASSPATH = "classpath";
+    private static final String SIGNATURE_INDEX = "signatureIndex";
 
 
     static Map<String, String> shortToLong = new HashMap<>();
@@ -18,6 +24,10 @@ public class CompilerConfig {
         shortToLong.put("i", CompilerConfig.INPUT_FILE);
         shortToLong.put("o", CompilerConfig.OPTIMIZE);
         shortToLong.put("r", CompilerConfig.REGISTER);
+        shortToLong.put("f", CompilerConfig.DFA_FLUSH);
+        shortToLong.put("c", CompilerConfig.AST_CACHE);
+        shortToLong.put("p", CompilerConfig.CLASSPATH);
+        shortToLong.put("s", CompilerConfig.SIGNATURE_INDEX);
     }
 
 
@@ -40,6 +50,40 @@ public class CompilerConfig {
         return Integer.parseInt(config.getOrDefault(REGISTER, "-1"));
     }
 
+    /**
+     * @return after how many parses the prediction caches shared by the parsers are cleared, or -1 to never clear them
+     */
+    public static int getDfaFlush(Map<String, String> config) {
+        return Integer.parseInt(config.getOrDefault(DFA_FLUSH, "-1"));
+    }
+
+
+    /**
+     * @return true if the AST of the input file is cached in a file next to it
+     */
+    public static boolean getAstCache(Map<String, String> config) {
+        return Boolean.parseBoolean(config.getOrDefault(AST_CACHE, "false"));
+    }
+
+    /**
+     * @return the directories and JARs where the imported classes are looked for, in order
+     */
+    public static List<File> getClasspath(Map<String, String> config) {
+        return Arrays.stream(config.getOrDefault(CLASSPATH, "libs-jmm/compiled").split(File.pathSeparator))
+                .filter(path -> !path.isBlank())
+                .map(File::new)
+                .toList();
+    }
+
+    /**
+     * @return the file where the signatures of the imported classes are kept between compilations, if any
+     */
+    public static Optional<File> getSignatureIndex(Map<String, String> config) {
+        var index = config.getOrDefault(SIGNATURE_INDEX, "");
+
+        return index.isBlank() ? Optional.empty() : Optional.of(new File(index));
+    }
+
 
     public static Map<String, String> getDefault() {
 
@@ -47,6 +91,10 @@ public class CompilerConfig {
 
         config.put(CompilerConfig.OPTIMIZE, "false");
         config.put(CompilerConfig.REGISTER, "-1");
+        config.put(CompilerConfig.DFA_FLUSH, "-1");
+        config.put(CompilerConfig.AST_CACHE, "false");
+        config.put(CompilerConfig.CLASSPATH, "libs-jmm/compiled");
+        config.put(CompilerConfig.SIGNATURE_INDEX, "");
 
         return config;
     }
@@ -106,6 +154,8 @@ public class CompilerConfig {
         // Verify if values are valid
         getOptimize(config);
         getRegisterAllocation(config);
+        getDfaFlush(config);
+        getAstCache(config);
 
         return config;
     }
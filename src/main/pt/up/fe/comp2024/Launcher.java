@@ -9,7 +9,6 @@ import pt.up.fe.comp2024.analysis.JmmAnalysisImpl;
 import pt.up.fe.comp2024.backend.JasminBackendImpl;
 import pt.up.fe.comp2024.optimization.JmmOptimizationImpl;
 import pt.up.fe.comp2024.parser.JmmParserImpl;
-import pt.up.fe.specs.util.SpecsIo;
 import pt.up.fe.specs.util.SpecsSystem;
 
 import java.util.Map;
@@ -25,11 +24,10 @@ public class Launcher {
         if (!inputFile.isFile()) {
             throw new RuntimeException("Option '-i' expects a path to an existing input file, got '" + args[0] + "'.");
         }
-        String code = SpecsIo.read(inputFile);
 
         // Parsing stage
         JmmParserImpl parser = new JmmParserImpl();
-        JmmParserResult parserResult = parser.parse(code, config);
+        JmmParserResult parserResult = parser.parse(inputFile, config);
         TestUtils.noErrors(parserResult.getReports());
 
         // Print AST
@@ -46,6 +44,9 @@ public class Launcher {
         OllirResult ollirResult = ollirGen.toOllir(semanticsResult);
         TestUtils.noErrors(ollirResult.getReports());
 
+        ollirResult = ollirGen.optimize(ollirResult);
+        TestUtils.noErrors(ollirResult.getReports());
+
         // Print OLLIR code
         System.out.println("Ollir code:");
         System.out.println(ollirResult.getOllirCode());
@@ -7,11 +7,16 @@ import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.ast.PreorderJmmVisitor;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.ast.KindDispatch;
 import pt.up.fe.comp2024.ast.NodeUtils;
+import pt.up.fe.comp2024.ast.TypeUtils;
+import pt.up.fe.comp2024.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2024.symboltable.MethodTable;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiFunction;
 
 import static pt.up.fe.comp2024.ast.Kind.*;
 
@@ -19,12 +24,18 @@ import static pt.up.fe.comp2024.ast.Kind.*;
 public abstract class AnalysisVisitor extends PreorderJmmVisitor<SymbolTable, Void> implements AnalysisPass {
 
     private final List<Report> reports;
+    private final KindDispatch<SymbolTable, Void> dispatch = new KindDispatch<>();
 
     public AnalysisVisitor() {
         reports = new ArrayList<>();
         setDefaultValue(() -> null);
     }
 
+    @Override
+    protected BiFunction<JmmNode, SymbolTable, Void> getVisit(JmmNode node) {
+        return dispatch.get(node, super::getVisit);
+    }
+
     protected void addReport(Report report) {
         reports.add(report);
     }
@@ -38,10 +49,10 @@ public abstract class AnalysisVisitor extends PreorderJmmVisitor<SymbolTable, Vo
         Type arrayType;
         switch (node.getKind()) {
             case "IntegerLiteral", "FieldAccess":
-                return new Type("int", false);
+                return TypeUtils.INT_TYPE;
 
             case "BooleanLiteral", "Not":
-                return new Type("boolean", false);
+                return TypeUtils.BOOL_TYPE;
 
             case "VarRefExpr":
                 return getVarType(node, symbolTable);
@@ -49,9 +60,9 @@ public abstract class AnalysisVisitor extends PreorderJmmVisitor<SymbolTable, Vo
             case "BinaryExpr":
                 String operator = node.get("op");
                 if (operator.equals("+") || operator.equals("-") || operator.equals("/") || operator.equals("*")) {
-                    return new Type("int", false);
+                    return TypeUtils.INT_TYPE;
                 } else {
-                    return new Type("boolean", false);
+                    return TypeUtils.BOOL_TYPE;
                 }
             case "ParenthesesExpr":
                 return getType(node.getChildren().get(0), symbolTable);
@@ -60,35 +71,35 @@ public abstract class AnalysisVisitor extends PreorderJmmVisitor<SymbolTable, Vo
                 arrayNode = node.getChildren().get(0);
                 arrayType = getType(arrayNode, symbolTable);
                 if (arrayType != null && arrayType.isArray()) {
-                    return new Type(arrayType.getName(), false);
+                    return TypeUtils.getType(arrayType.getName(), false);
                 }
                 return null;
 
             case "NewObjectExpr":
-                return new Type(node.get("name"), false);
+                return TypeUtils.getType(node.get("name"), false);
 
             case "NewVectorExpr":
-                return new Type(node.getChild(0).get("name"), true);
+                return TypeUtils.getType(node.getChild(0).get("name"), true);
 
             case "ThisExpr":
-                return new Type(symbolTable.getClassName(), false);
+                return TypeUtils.getType(symbolTable.getClassName(), false);
 
             case "FunctionCallExpr":
                 return manageFunctionCall(node, symbolTable);
 
             case "AccessExpr":
                 String array = getType(node.getChildren().get(0), symbolTable).getName();
-                return new Type(array, false);
+                return TypeUtils.getType(array, false);
 
             case "ElementExpr":
                 if (checkArraySameType(node, symbolTable)) {
                     String val = getType(node.getChildren().get(0), symbolTable).getName();
-                    return new Type(val, true);
+                    return TypeUtils.getType(val, true);
                 } else return null;
             case "Type":
-                return new Type(node.get("name"), Boolean.parseBoolean(node.get("isArray")));
+                return TypeUtils.getType(node.get("name"), NodeUtils.getBooleanAttribute(node, "isArray", "false"));
             case "Param":
-                return new Type(node.getChild(0).get("name"), Boolean.parseBoolean(node.getChild(0).get("isArray")));
+                return TypeUtils.getType(node.getChild(0).get("name"), NodeUtils.getBooleanAttribute(node.getChild(0), "isArray", "false"));
             default:
                 return null;
         }
@@ -96,7 +107,7 @@ public abstract class AnalysisVisitor extends PreorderJmmVisitor<SymbolTable, Vo
 
     protected Type getFieldType(JmmNode node, SymbolTable symbolTable) {
         Type varType = getType(node.getChild(0), symbolTable);
-        if(!varType.getName().equals(symbolTable.getClassName())) return new Type("yodaPotatoDestroyer2024GigaSpecific", false);
+        if(!varType.getName().equals(symbolTable.getClassName())) return TypeUtils.getType("yodaPotatoDestroyer2024GigaSpecific", false);
 
         String fieldName = node.get("field");
         Optional<Symbol> field = symbolTable.getFields().stream()
@@ -126,10 +137,7 @@ public abstract class AnalysisVisitor extends PreorderJmmVisitor<SymbolTable, Vo
 
             for (var child : variables) {
                 if (child.get("name").equals(varName)) {
-                    var varType = child.getChild(0).get("name");
-                    var isArray = Boolean.parseBoolean(child.getChild(0).get("isArray"));
-                    var isVarArgs = Boolean.parseBoolean(child.getChild(0).get("isVarArgs"));
-                    return new Type(varType, isArray || isVarArgs);
+                    return NodeUtils.getDeclaredType(child.getChild(0));
                 }
             }
         }
@@ -154,30 +162,65 @@ public abstract class AnalysisVisitor extends PreorderJmmVisitor<SymbolTable, Vo
     }
 
     private Type checkInstanceMethod(Type varType, JmmNode node, SymbolTable symbolTable) {
+        Type returnType = getCalledReturnType(node, symbolTable);
         if (varType.getName().equals(symbolTable.getClassName())) {         // no caso de ter a mesma classe que a atual
-            if (symbolTable.getReturnType(node.get("func")) != null)        // se tiver o metodo tudo bem
-                return symbolTable.getReturnType(node.get("func"));
+            if (returnType != null)        // se tiver o metodo tudo bem
+                return returnType;
             else if (!symbolTable.getSuper().isBlank())                                          // se houver super
-                return new Type("yodaPotatoDestroyer2024GigaSpecific", false);      // assumir que esta na super
+                return TypeUtils.getType("yodaPotatoDestroyer2024GigaSpecific", false);      // assumir que esta na super
             else
                 return null;                                                               // se nao erro
         } else if (varType.getName().equals(symbolTable.getSuper())) {      // no caso de ser a super classe
-            if (symbolTable.getReturnType(node.get("func")) != null)     // se tiver o metodo tudo bem
-                return symbolTable.getReturnType(node.get("func"));
-            return new Type("yodaPotatoDestroyer2024GigaSpecific", false); // se nao -> assumir metodo na super classe
+            if (returnType != null)     // se tiver o metodo tudo bem
+                return returnType;
+            return getImportedReturnType(varType.getName(), node, symbolTable); // se nao -> assumir metodo na super classe
         } else if (symbolTable.getImports().contains(varType.getName())) {                  // no caso de ser uma classe importada
-            return new Type("yodaPotatoDestroyer2024GigaSpecific", false);  // assumir metodo na classe importada
+            return getImportedReturnType(varType.getName(), node, symbolTable);  // assumir metodo na classe importada
         } else
             return null;
     }
 
     private Type checkStaticMethod(String callerClass, JmmNode node, SymbolTable symbolTable) {
         if (symbolTable.getImports().contains(callerClass)) {                     // no caso de ser uma classe importada
-            return new Type("yodaPotatoDestroyer2024GigaSpecific", false);  // assumir metodo na classe importada
+            return getImportedReturnType(callerClass, node, symbolTable);  // assumir metodo na classe importada
         } else
             return null;
     }
 
+    /**
+     * @return the return type of the method of the class the call refers to, chosen among its overloads by the types of
+     * the arguments
+     */
+    private Type getCalledReturnType(JmmNode node, SymbolTable symbolTable) {
+        return getCalledMethod(node, symbolTable)
+                .map(MethodTable.Method::getReturnType)
+                .orElseGet(() -> symbolTable instanceof JmmSymbolTable ? null : symbolTable.getReturnType(node.get("func")));
+    }
+
+    protected Optional<MethodTable.Method> getCalledMethod(JmmNode node, SymbolTable symbolTable) {
+        if (!(symbolTable instanceof JmmSymbolTable table)) return Optional.empty();
+
+        List<JmmNode> args = node.getChildren().subList(1, node.getNumChildren());
+        return table.getMethodTable().resolve(node.get("func"), args.size(),
+                () -> args.stream().map(arg -> getType(arg, symbolTable)).toList());
+    }
+
+    /**
+     * @return the return type of the method called on an imported class, as declared in its class file, or the type
+     * accepted by every check if the method can't be found there, e.g. because it is inherited
+     */
+    private Type getImportedReturnType(String className, JmmNode node, SymbolTable symbolTable) {
+        Optional<Type> returnType = Optional.empty();
+
+        if (symbolTable instanceof JmmSymbolTable table) {
+            int arity = node.getNumChildren() - 1;
+            returnType = table.getImportedClass(className)
+                    .flatMap(importedClass -> importedClass.getReturnType(node.get("func"), arity));
+        }
+
+        return returnType.orElseGet(() -> TypeUtils.getType("yodaPotatoDestroyer2024GigaSpecific", false));
+    }
+
     private boolean isStatic(JmmNode node, SymbolTable symbolTable) {
         JmmNode variable = node.getChild(0);
         Type varType = getType(variable, symbolTable);
@@ -1,48 +1,42 @@
 package pt.up.fe.comp2024.analysis;
 
-import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp2024.symboltable.ClassSignature;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 
+/**
+ * A class named by an import, with the signatures read from its class file. The instances are shared by every
+ * compilation through the cache of the import resolver, so they are immutable.
+ */
 public class ImportedClass{
 
-    public String className;
-    public List<String> methods;
-    public List<Symbol> fields;
-    public Map<String, Type> returnTypes;
-    public Map<String, List<Symbol>> params;
+    private final String className;
+    private final ClassSignature signature;
 
+    /**
+     * A class whose class file wasn't found, so nothing is known about its members.
+     */
     public ImportedClass(String className){
         this.className = className;
-        this.methods = new ArrayList<>();
-        this.fields = new ArrayList<>();
-        this.returnTypes = new HashMap<>();
-        this.params = new HashMap<>();
+        this.signature = new ClassSignature(className, "", List.of(), List.of());
     }
 
-    public String getClassName() {
-        return className;
-    }
-
-    public List<String> getMethods() {
-        return methods;
-    }
-
-    public List<Symbol> getFields() {
-        return fields;
+    public ImportedClass(ClassSignature signature){
+        this.className = signature.getName().substring(signature.getName().lastIndexOf('.') + 1);
+        this.signature = signature;
     }
 
-    public Map<String, Type> getReturnTypes() {
-        return returnTypes;
+    public String getClassName() {
+        return className;
     }
 
-    public Map<String, List<Symbol>> getParams() {
-        return params;
+    /**
+     * @return the return type of the method called with the given number of arguments, if it is known
+     * @see ClassSignature#getReturnType(String, int)
+     */
+    public Optional<Type> getReturnType(String methodName, int arity) {
+        return signature.getReturnType(methodName, arity);
     }
-
-
 }
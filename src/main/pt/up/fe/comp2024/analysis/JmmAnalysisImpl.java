@@ -37,7 +37,7 @@ public class JmmAnalysisImpl implements JmmAnalysis {
 
         JmmNode rootNode = parserResult.getRootNode();
 
-        SymbolTable table = JmmSymbolTableBuilder.build(rootNode);
+        SymbolTable table = JmmSymbolTableBuilder.build(rootNode, parserResult.getConfig());
 
         List<Report> reports = new ArrayList<>();
 
@@ -7,6 +7,7 @@ import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2024.analysis.AnalysisVisitor;
 import pt.up.fe.comp2024.ast.NodeUtils;
+import pt.up.fe.comp2024.ast.TypeUtils;
 
 public class ArrayUsageCheck extends AnalysisVisitor {
 
@@ -27,7 +28,7 @@ public class ArrayUsageCheck extends AnalysisVisitor {
             addReport(Report.newError(Stage.SEMANTIC, NodeUtils.getLine(node), NodeUtils.getColumn(node), "First:" + leftType + "element inst an Array.", null));
         }
 
-        if (!rightType.equals(new Type("int", false))) {
+        if (!rightType.equals(TypeUtils.INT_TYPE)) {
             addReport(Report.newError(Stage.SEMANTIC, NodeUtils.getLine(node), NodeUtils.getColumn(node), "Array access being done without an int type.", null));
         }
 
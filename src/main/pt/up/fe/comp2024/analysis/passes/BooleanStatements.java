@@ -6,6 +6,7 @@ import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2024.analysis.AnalysisVisitor;
 import pt.up.fe.comp2024.ast.NodeUtils;
+import pt.up.fe.comp2024.ast.TypeUtils;
 
 import static pt.up.fe.comp2024.ast.Kind.*;
 
@@ -20,7 +21,7 @@ public class BooleanStatements extends AnalysisVisitor {
     private Void visitBooleanStmt(JmmNode boolStmtNode, SymbolTable table) {
         JmmNode condition = boolStmtNode.getChild(0);
         Type condType = getType(condition, table);
-        if (!condType.equals(new Type("boolean", false))) {
+        if (!condType.equals(TypeUtils.BOOL_TYPE)) {
             addReport(Report.newError(Stage.SEMANTIC, NodeUtils.getLine(boolStmtNode), NodeUtils.getColumn(boolStmtNode), "If condition must be a boolean expression.", null));
         }
         return null;
@@ -1,12 +1,13 @@
 package pt.up.fe.comp2024.analysis.passes;
 
-import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2024.analysis.AnalysisVisitor;
 import pt.up.fe.comp2024.ast.NodeUtils;
+import pt.up.fe.comp2024.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2024.symboltable.MethodTable;
 
 import java.util.*;
 
@@ -40,17 +41,10 @@ public class Duplicates extends AnalysisVisitor {
         }
 
 
-        for(String methodA : symbolTable.getMethods()){
-            int count = 0;
-            for(String methodB : symbolTable.getMethods()){
-                if(Objects.equals(methodA, methodB)){
-                    List<Symbol> paramsA = symbolTable.getParameters(methodA);
-                    List<Symbol> paramsB = symbolTable.getParameters(methodB);
-                    if(paramsA.equals(paramsB)) count++;
-                }
-            }
-            if(count > 1){
-                addReport(Report.newError(Stage.SEMANTIC, NodeUtils.getLine(jmmNode), NodeUtils.getColumn(jmmNode), "Duplicate method: " + methodA, null));
+        // methods with the same signature are found while building the table, overloads are allowed
+        if (symbolTable instanceof JmmSymbolTable table) {
+            for (var method : table.getMethodTable().getDuplicates()) {
+                addReport(Report.newError(Stage.SEMANTIC, NodeUtils.getLine(jmmNode), NodeUtils.getColumn(jmmNode), "Duplicate method: " + method.getSignature(), null));
             }
         }
         return null;
@@ -58,13 +52,13 @@ public class Duplicates extends AnalysisVisitor {
 
     private Void visitMethod(JmmNode jmmNode, SymbolTable symbolTable) {
         Set<String> methodVarsSet = new HashSet<>();
-        for (var param : symbolTable.getParameters(jmmNode.get("name"))) {
+        for (var param : symbolTable.getParameters(MethodTable.getSignature(jmmNode, symbolTable))) {
             if (!methodVarsSet.add(param.getName())) {
                 addReport(Report.newError(Stage.SEMANTIC, NodeUtils.getLine(jmmNode), NodeUtils.getColumn(jmmNode), "Duplicate parameter: " + param.getName(), null));
             }
         }
 
-        for (var variable : symbolTable.getLocalVariables(jmmNode.get("name"))) {
+        for (var variable : symbolTable.getLocalVariables(MethodTable.getSignature(jmmNode, symbolTable))) {
             if (!methodVarsSet.add(variable.getName())) {
                 addReport(Report.newError(Stage.SEMANTIC, NodeUtils.getLine(jmmNode), NodeUtils.getColumn(jmmNode), "Duplicate variable: " + variable.getName(), null));
             }
@@ -9,6 +9,7 @@ import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2024.analysis.AnalysisVisitor;
 import pt.up.fe.comp2024.ast.Kind;
 import pt.up.fe.comp2024.ast.NodeUtils;
+import pt.up.fe.comp2024.symboltable.MethodTable;
 
 import java.util.List;
 import java.util.Optional;
@@ -45,8 +46,7 @@ public class MethodCallCheck extends AnalysisVisitor {
     }
 
     private JmmNode getMethodHeader(JmmNode methodCallNode, SymbolTable symbolTable) {
-        Optional<JmmNode> classNode = methodCallNode.getAncestor(CLASS_DECL);
-        return classNode.flatMap(jmmNode -> jmmNode.getChildren(METHOD_DECL).stream().filter(method -> method.get("name").equals(methodCallNode.get("func"))).findFirst()).orElse(null);
+        return getCalledMethod(methodCallNode, symbolTable).map(MethodTable.Method::getDeclaration).orElse(null);
     }
 
     protected Void visitReturnStmt(JmmNode returnStmt, SymbolTable symbolTable) {
@@ -83,7 +83,7 @@ public class MethodCallCheck extends AnalysisVisitor {
                 JmmNode paramTypeA = methodParams.get(i).getChild(0);
                 Type paramTypeB = getType(paramTypeA, symbolTable);
                 Type corrVarType = getType(methodCallNode.getChild(i + 1), symbolTable);
-                if (Boolean.parseBoolean(paramTypeA.get("isVarArgs"))) {
+                if (NodeUtils.getBooleanAttribute(paramTypeA, "isVarArgs", "false")) {
                     if (!allSameType(paramTypeB, methodCallNode.getChildren().subList(i + 1, methodCallNode.getChildren().size()), symbolTable)) {
                         addReport(Report.newError(Stage.SEMANTIC, NodeUtils.getLine(methodCallNode), NodeUtils.getColumn(methodCallNode), "Method call parameter type does not match method parameter type.", null));
                     }
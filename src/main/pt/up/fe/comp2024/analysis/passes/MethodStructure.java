@@ -7,6 +7,8 @@ import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2024.analysis.AnalysisVisitor;
 import pt.up.fe.comp2024.ast.NodeUtils;
+import pt.up.fe.comp2024.ast.TypeUtils;
+import pt.up.fe.comp2024.symboltable.MethodTable;
 
 import java.util.List;
 
@@ -33,9 +35,9 @@ public class MethodStructure extends AnalysisVisitor {
 
     private void checkReturnLast(JmmNode methodDeclNode, SymbolTable table) {
         List<JmmNode> methodBody = methodDeclNode.getChildren();
-        Type returnType = table.getReturnType(methodDeclNode.get("name"));
+        Type returnType = table.getReturnType(MethodTable.getSignature(methodDeclNode, table));
 
-        if(!returnType.equals(new Type("void", false))){
+        if(!returnType.equals(TypeUtils.VOID_TYPE)){
             List<JmmNode> stmtList = methodDeclNode.getChildren();
             JmmNode lastStmt = stmtList.get(stmtList.size() - 1);
             if(!lastStmt.getKind().equals("ReturnStmt"))
@@ -51,7 +53,7 @@ public class MethodStructure extends AnalysisVisitor {
     private void checkVarArgsLast(JmmNode methodDeclNode, SymbolTable table) {
         List<JmmNode> methodParams = methodDeclNode.getChildren(PARAM);
         for (int i = 0; i < methodParams.size(); i++) {
-            if (Boolean.parseBoolean(methodParams.get(i).getChild(0).get("isVarArgs"))) {
+            if (NodeUtils.getBooleanAttribute(methodParams.get(i).getChild(0), "isVarArgs", "false")) {
                 if (i != methodParams.size() - 1)
                     addReport(Report.newError(
                             Stage.SEMANTIC,
@@ -64,10 +66,10 @@ public class MethodStructure extends AnalysisVisitor {
     }
 
     private void checkMainHeader(JmmNode methodDeclNode, SymbolTable table) {
-        boolean isStatic = Boolean.parseBoolean(methodDeclNode.get("isStatic"));
-        boolean isPublic = Boolean.parseBoolean(methodDeclNode.get("isPublic"));
-        Type returnType = table.getReturnType(methodDeclNode.get("name"));
-        if (!(isStatic && isPublic && returnType.equals(new Type("void", false))))
+        boolean isStatic = NodeUtils.getBooleanAttribute(methodDeclNode, "isStatic", "false");
+        boolean isPublic = NodeUtils.getBooleanAttribute(methodDeclNode, "isPublic", "false");
+        Type returnType = table.getReturnType(MethodTable.getSignature(methodDeclNode, table));
+        if (!(isStatic && isPublic && returnType.equals(TypeUtils.VOID_TYPE)))
             addReport(Report.newError(
                     Stage.SEMANTIC,
                     NodeUtils.getLine(methodDeclNode),
@@ -87,7 +89,7 @@ public class MethodStructure extends AnalysisVisitor {
                     null));
         else {
             Type paramType = getVarType(methodParams.get(0), table);
-            if (!paramType.equals(new Type("String", true)))
+            if (!paramType.equals(TypeUtils.getType("String", true)))
                 addReport(Report.newError(
                         Stage.SEMANTIC,
                         NodeUtils.getLine(methodParams.get(0)),
@@ -20,7 +20,7 @@ public class ThisUsageCheck extends AnalysisVisitor {
 
     private Void visitMethodDecl(JmmNode method, SymbolTable table) {
         currentMethod = method.get("name");
-        isStaticMethod = method.getOptional("isStatic").map(Boolean::parseBoolean).orElse(false);
+        isStaticMethod = NodeUtils.getBooleanAttribute(method, "isStatic", "false");
         return null;
     }
 
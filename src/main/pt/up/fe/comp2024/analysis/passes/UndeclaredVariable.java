@@ -7,6 +7,7 @@ import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2024.analysis.AnalysisVisitor;
 import pt.up.fe.comp2024.ast.Kind;
 import pt.up.fe.comp2024.ast.NodeUtils;
+import pt.up.fe.comp2024.symboltable.MethodTable;
 import pt.up.fe.specs.util.SpecsCheck;
 
 public class UndeclaredVariable extends AnalysisVisitor {
@@ -21,8 +22,8 @@ public class UndeclaredVariable extends AnalysisVisitor {
     }
 
     private Void visitMethodDecl(JmmNode method, SymbolTable table) {
-        currentMethod = method.get("name");
-        isStaticMethod = method.getOptional("isStatic").map(Boolean::parseBoolean).orElse(false);
+        currentMethod = MethodTable.getSignature(method, table);
+        isStaticMethod = NodeUtils.getBooleanAttribute(method, "isStatic", "false");
         return null;
     }
 
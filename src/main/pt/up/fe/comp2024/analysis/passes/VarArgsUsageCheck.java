@@ -23,7 +23,7 @@ public class VarArgsUsageCheck extends AnalysisVisitor {
 
     private Void visitClassDecl(JmmNode classDeclNode, SymbolTable table) {
         for (JmmNode varDecl : classDeclNode.getChildren(VAR_DECL)) {
-            if (Boolean.parseBoolean(varDecl.getChild(0).get("isVarArgs"))) {
+            if (NodeUtils.getBooleanAttribute(varDecl.getChild(0), "isVarArgs", "false")) {
                 addReport(Report.newError(
                         Stage.SEMANTIC,
                         NodeUtils.getLine(varDecl),
@@ -37,7 +37,7 @@ public class VarArgsUsageCheck extends AnalysisVisitor {
 
     private Void visitVarDecl(JmmNode methodDeclNode, SymbolTable table) {
         for (JmmNode varDecl : methodDeclNode.getChildren(VAR_DECL)) {
-            if (Boolean.parseBoolean(varDecl.getChild(0).get("isVarArgs"))) {
+            if (NodeUtils.getBooleanAttribute(varDecl.getChild(0), "isVarArgs", "false")) {
                 addReport(Report.newError(
                         Stage.SEMANTIC,
                         NodeUtils.getLine(varDecl),
@@ -4,6 +4,8 @@ import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.specs.util.SpecsStrings;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 public enum Kind {
@@ -36,6 +38,14 @@ public enum Kind {
     private static final Set<Kind> STATEMENTS = Set.of(ASSIGN_STMT, RETURN_STMT, WHILE_STMT, IF_STMT);
     private static final Set<Kind> EXPRESSIONS = Set.of(BINARY_EXPR, INTEGER_LITERAL, VAR_REF_EXPR, NEW_OBJECT_EXPR, NEW_VECTOR_EXPR, THIS_EXPR, ELEMENT_EXPR, FIELD_ACCESS, ACCESS_EXPR);
 
+    private static final Map<String, Kind> BY_NODE_NAME = new HashMap<>();
+
+    static {
+        for (Kind kind : Kind.values()) {
+            BY_NODE_NAME.put(kind.getNodeName(), kind);
+        }
+    }
+
     private final String name;
 
     private Kind(String name) {
@@ -48,12 +58,18 @@ public enum Kind {
 
     public static Kind fromString(String kind) {
 
-        for (Kind k : Kind.values()) {
-            if (k.getNodeName().equals(kind)) {
-                return k;
-            }
+        Kind k = BY_NODE_NAME.get(kind);
+        if (k == null) {
+            throw new RuntimeException("Could not convert string '" + kind + "' to a Kind");
         }
-        throw new RuntimeException("Could not convert string '" + kind + "' to a Kind");
+        return k;
+    }
+
+    /**
+     * @return the kind with the given node name, or null if the grammar has a node without a matching kind
+     */
+    static Kind fromNodeName(String kind) {
+        return BY_NODE_NAME.get(kind);
     }
 
     public String getNodeName() {
@@ -0,0 +1,39 @@
+package pt.up.fe.comp2024.ast;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Remembers the visit method a visitor uses for each {@link Kind}, indexed by its ordinal.
+ * <p>
+ * AJmmVisitor searches its visit methods by walking the hierarchy of every node it visits. The method it finds only
+ * depends on the kind of the node, so it is looked up once per kind and then found with an array access. Nodes whose
+ * kind is not a {@link Kind} are always looked up.
+ */
+public class KindDispatch<D, R> {
+
+    // arrays of a generic type can only be created with wildcards
+    @SuppressWarnings("unchecked")
+    private final BiFunction<JmmNode, D, R>[] visits =
+            (BiFunction<JmmNode, D, R>[]) new BiFunction<?, ?, ?>[Kind.values().length];
+
+    /**
+     * @param node   the node being visited
+     * @param lookup finds the visit method of a node in the visitor
+     * @return the visit method for the kind of the node
+     */
+    public BiFunction<JmmNode, D, R> get(JmmNode node, Function<JmmNode, BiFunction<JmmNode, D, R>> lookup) {
+        Kind kind = Kind.fromNodeName(node.getKind());
+        if (kind == null) return lookup.apply(node);
+
+        BiFunction<JmmNode, D, R> visit = visits[kind.ordinal()];
+        if (visit == null) {
+            visit = lookup.apply(node);
+            visits[kind.ordinal()] = visit;
+        }
+
+        return visit;
+    }
+}
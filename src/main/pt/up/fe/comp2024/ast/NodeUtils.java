@@ -1,5 +1,6 @@
 package pt.up.fe.comp2024.ast;
 
+import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 
 public class NodeUtils {
@@ -14,14 +15,27 @@ public class NodeUtils {
         return getIntegerAttribute(node, "colStart", "-1");
     }
 
+    // the rule locals of the grammar (isArray, isStatic, ...) are kept as typed objects, only token texts are strings
+
     public static int getIntegerAttribute(JmmNode node, String attribute, String defaultVal) {
-        String line = node.getOptional(attribute).orElse(defaultVal);
-        return Integer.parseInt(line);
+        Object value = node.getOptionalObject(attribute).orElse(defaultVal);
+        return value instanceof Integer ? (Integer) value : Integer.parseInt(value.toString());
     }
 
     public static boolean getBooleanAttribute(JmmNode node, String attribute, String defaultVal) {
-        String line = node.getOptional(attribute).orElse(defaultVal);
-        return Boolean.parseBoolean(line);
+        Object value = node.getOptionalObject(attribute).orElse(defaultVal);
+        return value instanceof Boolean ? (Boolean) value : Boolean.parseBoolean(value.toString());
+    }
+
+    /**
+     * Gets the type declared by a Type node, where varargs are arrays. The type comes from the pool of
+     * {@link TypeUtils#getType}, so the symbol table, the analysis and the code generation share it without keeping
+     * anything in the node, where it would show in dumps of the AST and in its cache.
+     */
+    public static Type getDeclaredType(JmmNode typeNode) {
+        boolean isArray = getBooleanAttribute(typeNode, "isArray", "false")
+                || getBooleanAttribute(typeNode, "isVarArgs", "false");
+        return TypeUtils.getType(typeNode.get("name"), isArray);
     }
 
 
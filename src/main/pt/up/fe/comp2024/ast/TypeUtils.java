@@ -4,10 +4,14 @@ import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2024.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2024.symboltable.MethodTable;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class TypeUtils {
 
@@ -15,6 +19,38 @@ public class TypeUtils {
 
     private static final String BOOL_TYPE_NAME = "boolean";
 
+    // every type is taken from here, so types with the same name are the same instance and equals stops at the
+    // identity check. The instances are shared by every compilation in the process, so attributes must never be put in
+    // them
+    private static final Map<String, Type> TYPES = new ConcurrentHashMap<>();
+
+    private static final Map<String, Type> ARRAY_TYPES = new ConcurrentHashMap<>();
+
+    // the names of the classes of every compilation end up in the pool, so past this size the types aren't pooled
+    private static final int MAX_POOLED_TYPES = 1024;
+
+    public static final Type INT_TYPE = getType(INT_TYPE_NAME, false);
+
+    public static final Type INT_ARRAY_TYPE = getType(INT_TYPE_NAME, true);
+
+    public static final Type BOOL_TYPE = getType(BOOL_TYPE_NAME, false);
+
+    public static final Type VOID_TYPE = getType("void", false);
+
+    /**
+     * @return the canonical instance of the type with the given name, or a new one if the pool is full. The instance
+     * may be shared, so it must not be modified with {@link Type#putObject}
+     */
+    public static Type getType(String name, boolean isArray) {
+        var types = isArray ? ARRAY_TYPES : TYPES;
+
+        var type = types.get(name);
+        if (type != null) return type;
+        if (types.size() >= MAX_POOLED_TYPES) return new Type(name, isArray);
+
+        return types.computeIfAbsent(name, typeName -> new Type(typeName, isArray));
+    }
+
     public static String getIntTypeName() {
         return INT_TYPE_NAME;
     }
@@ -36,40 +72,81 @@ public class TypeUtils {
 
         return switch (kind) {
             case BINARY_EXPR -> getBinExprType(expr);
-            case BOOLEAN_LITERAL -> new Type(BOOL_TYPE_NAME, false);
+            case BOOLEAN_LITERAL -> BOOL_TYPE;
             case VAR_REF_EXPR -> getVarExprType(expr, table);
-            case INTEGER_LITERAL, ACCESS_EXPR -> new Type(INT_TYPE_NAME, false);
+            case INTEGER_LITERAL, ACCESS_EXPR -> INT_TYPE;
             case FUNCTION_CALL_EXPR -> {
-                yield table.getReturnType(expr.get("func"));
+                yield getImportedReturnType(expr, table).orElseGet(() -> getCalledReturnType(expr, table));
                 //JmmNode assignStmt = findAncestorOfKind(expr, "AssignStmt");
                 //yield (assignStmt != null) ? getVarExprType(assignStmt.getChildren().get(0), table) : new Type("void", false);
             }
-            case NEW_OBJECT_EXPR -> new Type(expr.get("name"), false);
-            case NEW_VECTOR_EXPR, ELEMENT_EXPR -> new Type("int", true); // Assuming the array type is int for simplicity
-            case THIS_EXPR -> new Type(table.getClassName(), false);
+            case NEW_OBJECT_EXPR -> getType(expr.get("name"), false);
+            case NEW_VECTOR_EXPR, ELEMENT_EXPR -> INT_ARRAY_TYPE; // Assuming the array type is int for simplicity
+            case THIS_EXPR -> getType(table.getClassName(), false);
             default -> throw new UnsupportedOperationException("Can't compute type for expression kind '" + kind + "'");
         };
     }
 
+    /**
+     * @return the return type of a call to a method of an imported class, as declared in its class file, if it is known
+     */
+    public static Optional<Type> getImportedReturnType(JmmNode call, SymbolTable table) {
+        if (!(table instanceof JmmSymbolTable jmmTable)) return Optional.empty();
+
+        Type receiverType = getExprType(call.getChild(0), table);
+        if (receiverType == null) return Optional.empty();
+
+        int arity = call.getNumChildren() - 1;
+        return jmmTable.getImportedClass(receiverType.getName())
+                .flatMap(importedClass -> importedClass.getReturnType(call.get("func"), arity));
+    }
+
+    /**
+     * @return the method of the class a call refers to, chosen among its overloads by the types of the arguments
+     */
+    public static Optional<MethodTable.Method> getCalledMethod(JmmNode call, SymbolTable table) {
+        if (!(table instanceof JmmSymbolTable jmmTable)) return Optional.empty();
+
+        List<JmmNode> args = call.getChildren().subList(1, call.getNumChildren());
+        return jmmTable.getMethodTable().resolve(call.get("func"), args.size(),
+                () -> args.stream().map(arg -> getArgType(arg, table)).toList());
+    }
+
+    private static Type getCalledReturnType(JmmNode call, SymbolTable table) {
+        if (!(table instanceof JmmSymbolTable)) return table.getReturnType(call.get("func"));
+
+        return getCalledMethod(call, table).map(MethodTable.Method::getReturnType).orElse(null);
+    }
+
+    private static Type getArgType(JmmNode arg, SymbolTable table) {
+        try {
+            return getExprType(arg, table);
+        } catch (UnsupportedOperationException e) {
+            // not every expression has a type here, and those match no overload
+            return null;
+        }
+    }
+
     private static Type getBinExprType(JmmNode binaryExpr) {
         String operator = binaryExpr.get("op");
         return switch (operator) {
-            case "+", "*", "-", "/" -> new Type(INT_TYPE_NAME, false); // checkar tipo do &&
-            case "&&", "<" -> new Type(BOOL_TYPE_NAME, false);
+            case "+", "*", "-", "/" -> INT_TYPE; // checkar tipo do &&
+            case "&&", "<" -> BOOL_TYPE;
             default -> throw new RuntimeException("Unknown operator '" + operator + "' in binary expression.");
         };
     }
 
     private static Type getVarExprType(JmmNode varRefExpr, SymbolTable table) {
         // This needs to be expanded to handle real type retrieval based on variable name
-        Type type = new Type(INT_TYPE_NAME, false);
-        List<Symbol> params = table.getParameters(Objects.requireNonNull(findAncestorOfKind(varRefExpr, "MethodDecl")).get("name"));
-        if (varRefExpr.getKind().equals("FunctionCallExpr")) return table.getReturnType(varRefExpr.get("func"));
+        Type type = INT_TYPE;
+        String methodSignature = MethodTable.getSignature(Objects.requireNonNull(findAncestorOfKind(varRefExpr, "MethodDecl")), table);
+        List<Symbol> params = table.getParameters(methodSignature);
+        if (varRefExpr.getKind().equals("FunctionCallExpr")) return getCalledReturnType(varRefExpr, table);
         if (varRefExpr.getKind().equals("BinaryExpr")) return type;
 
         if (varRefExpr.getKind().equals("VarRefExpr")) {
             for (String i : table.getImports()) {
-                if (i.equals(varRefExpr.get("name"))) return new Type(i, false);
+                if (i.equals(varRefExpr.get("name"))) return getType(i, false);
             }
         }
 
@@ -83,7 +160,7 @@ public class TypeUtils {
             if (field.getName().equals(varRefExpr.get("name"))) return field.getType();
         }
 
-        List<Symbol> locals = table.getLocalVariables(Objects.requireNonNull(findAncestorOfKind(varRefExpr, "MethodDecl")).get("name"));
+        List<Symbol> locals = table.getLocalVariables(methodSignature);
         for (Symbol local : locals) {
             if (local.getName().equals(varRefExpr.get("name"))) return local.getType();
         }
@@ -0,0 +1,129 @@
+package pt.up.fe.comp2024.backend;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Clears the local variables holding references right after their last use, so that the objects and arrays they
+ * point to can be collected while the method keeps running.
+ * <p>
+ * The live reference locals are found with a backward data-flow analysis over the instructions of a Jasmin method,
+ * one instruction or label per line. Clearing only pays off when a loop may run after the last use, so it is skipped
+ * when no backward jump follows it. Each clear pushes a null, so the stack limit of the method must grow by one when
+ * anything was cleared.
+ */
+public class DeadReferenceClearing {
+
+    private static final Pattern STORE = Pattern.compile("astore[_ ](\\d+)");
+    private static final Pattern LOAD = Pattern.compile("aload[_ ](\\d+)");
+    private static final Pattern JUMP = Pattern.compile("(goto|if\\w*) (\\w+)");
+
+    /**
+     * @param instructions the instructions of the method
+     * @param isStatic     whether the method is static, otherwise local 0 holds "this" and is never cleared
+     * @return the instructions with the dead references cleared
+     */
+    public List<String> clear(List<String> instructions, boolean isStatic) {
+        List<Set<String>> liveOut = computeLiveOut(instructions);
+        List<String> code = new ArrayList<>();
+
+        for (int i = 0; i < instructions.size(); i++) {
+            String inst = instructions.get(i);
+            code.add(inst);
+
+            Matcher load = LOAD.matcher(inst);
+            if (!load.matches() || liveOut.get(i).contains(load.group(1))) continue;
+            if (!isStatic && load.group(1).equals("0")) continue;
+
+            if (hasBackwardJumpAfter(instructions, i)) {
+                code.add("aconst_null");
+                code.add("astore " + load.group(1));
+            }
+        }
+
+        return code;
+    }
+
+    private List<Set<String>> computeLiveOut(List<String> instructions) {
+        Map<String, Integer> labels = new HashMap<>();
+        for (int i = 0; i < instructions.size(); i++) {
+            if (isLabel(instructions.get(i))) labels.put(label(instructions.get(i)), i);
+        }
+
+        List<Set<String>> liveIn = new ArrayList<>();
+        List<Set<String>> liveOut = new ArrayList<>();
+        for (int i = 0; i < instructions.size(); i++) {
+            liveIn.add(new HashSet<>());
+            liveOut.add(new HashSet<>());
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (int i = instructions.size() - 1; i >= 0; i--) {
+                String inst = instructions.get(i);
+
+                Set<String> out = new HashSet<>();
+                for (int successor : getSuccessors(instructions, labels, i)) {
+                    out.addAll(liveIn.get(successor));
+                }
+
+                Set<String> in = new HashSet<>(out);
+                Matcher store = STORE.matcher(inst);
+                Matcher load = LOAD.matcher(inst);
+                if (store.matches()) in.remove(store.group(1));
+                if (load.matches()) in.add(load.group(1));
+
+                changed |= !out.equals(liveOut.get(i)) || !in.equals(liveIn.get(i));
+                liveOut.set(i, out);
+                liveIn.set(i, in);
+            }
+        }
+
+        return liveOut;
+    }
+
+    private List<Integer> getSuccessors(List<String> instructions, Map<String, Integer> labels, int index) {
+        String inst = instructions.get(index);
+        List<Integer> successors = new ArrayList<>();
+
+        if (inst.endsWith("return") || inst.equals("athrow")) return successors;
+
+        Matcher jump = JUMP.matcher(inst);
+        if (jump.matches()) {
+            successors.add(labels.get(jump.group(2)));
+            if (jump.group(1).equals("goto")) return successors;
+        }
+
+        if (index + 1 < instructions.size()) successors.add(index + 1);
+        return successors;
+    }
+
+    private boolean hasBackwardJumpAfter(List<String> instructions, int index) {
+        Set<String> labelsBefore = new HashSet<>();
+        for (int i = 0; i < instructions.size(); i++) {
+            String inst = instructions.get(i);
+            if (isLabel(inst)) labelsBefore.add(label(inst));
+
+            Matcher jump = JUMP.matcher(inst);
+            if (i > index && jump.matches() && labelsBefore.contains(jump.group(2))) return true;
+        }
+
+        return false;
+    }
+
+    private String label(String line) {
+        return line.substring(0, line.length() - 1);
+    }
+
+    private boolean isLabel(String line) {
+        return line.endsWith(":");
+    }
+}
@@ -6,15 +6,16 @@ import pt.up.fe.comp.jmm.ollir.OllirResult;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.ReportType;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.CompilerConfig;
 import pt.up.fe.specs.util.classmap.FunctionClassMap;
 import pt.up.fe.specs.util.utilities.StringLines;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static org.specs.comp.ollir.InstructionType.CALL;
 import static org.specs.comp.ollir.OperationType.GTE;
 import static org.specs.comp.ollir.OperationType.LTH;
+import static org.specs.comp.ollir.OperationType.MUL;
 import static pt.up.fe.comp2024.backend.MyJasminUtils.*;
 
 /**
@@ -26,6 +27,8 @@ public class JasminGenerator {
 
     private final OllirResult ollirResult;
 
+    private final boolean optimize;
+
     List<Report> reports;
 
     String code;
@@ -36,6 +39,7 @@ public class JasminGenerator {
 
     public JasminGenerator(OllirResult ollirResult) {
         this.ollirResult = ollirResult;
+        this.optimize = ollirResult.getConfig() != null && CompilerConfig.getOptimize(ollirResult.getConfig());
 
         reports = new ArrayList<>();
         code = null;
@@ -139,27 +143,46 @@ public class JasminGenerator {
     private String generateMethodBody(Method method) {
         StringBuilder code = new StringBuilder();
         StringBuilder limits = new StringBuilder();
+        List<String> instructions = new ArrayList<>();
 
-        for (var inst : method.getInstructions()) {
+        // the labels of each instruction, as an instruction may have more than one
+        Map<Instruction, List<String>> labels = new IdentityHashMap<>();
+        method.getLabels().forEach((label, inst) -> labels.computeIfAbsent(inst, key -> new ArrayList<>()).add(label));
 
-            method.getLabels().entrySet().stream()
-                    .filter(label -> label.getValue().equals(inst))
-                    .findFirst()
-                    .ifPresent(label -> code.append(label.getKey()).append(":").append(NL));
+        for (var inst : method.getInstructions()) {
 
-            var instCode = StringLines.getLines(generators.apply(inst)).stream()
-                    .collect(Collectors.joining(NL + TAB, TAB, NL));
+            for (var label : labels.getOrDefault(inst, List.of())) {
+                instructions.add(label + ":");
+            }
 
-            code.append(instCode);
+            StringLines.getLines(generators.apply(inst)).stream()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty())
+                    .forEach(instructions::add);
 
             if(inst.getInstType() == CALL){
                 if(((CallInstruction) inst).getReturnType().getTypeOfElement() != ElementType.VOID){
                     jUtils.updateStackLimits(-1);
-                    code.append("\tpop").append(NL);
+                    instructions.add("pop");
                 }
             }
         }
 
+        if (optimize) {
+            var optimized = new JasminPeephole().optimize(instructions);
+            var cleared = new DeadReferenceClearing().clear(optimized, method.isStaticMethod());
+
+            // the null pushed to clear a reference may be on top of everything else on the stack
+            if (cleared.size() > optimized.size()) jUtils.stackLimit++;
+
+            instructions.clear();
+            instructions.addAll(cleared);
+        }
+
+        for (var line : instructions) {
+            code.append(line.endsWith(":") ? "" : TAB).append(line).append(NL);
+        }
+
         code.append(".end method").append(NL);
 
         // Add limits
@@ -229,7 +252,7 @@ public class JasminGenerator {
 
         String code = jUtils.generateLoad(fstOperand) +
                 jUtils.generateLoad(trdOperand) +
-                "putfield " + jUtils.convertClassName(fstOperand.getName()) + "/" +
+                "putfield " + getFieldClassName(fstOperand) + "/" +
                 sndOperand.getName() + " " + opType + NL;
 
         jUtils.updateStackLimits(-2);
@@ -243,10 +266,21 @@ public class JasminGenerator {
         String opType = jUtils.solveType(sndOperand.getType());
 
         return jUtils.generateLoad(fstOperand) + "getfield " +
-                jUtils.convertClassName(fstOperand.getName()) + "/" +
+                getFieldClassName(fstOperand) + "/" +
                 sndOperand.getName() + " " + opType + NL;
     }
 
+    /**
+     * Fields may also be accessed on other objects than "this", e.g. after inlining a method called on them.
+     */
+    private String getFieldClassName(Operand object) {
+        if (object.getName().equals("this") || !(object.getType() instanceof ClassType classType)) {
+            return jUtils.convertClassName(object.getName());
+        }
+
+        return jUtils.convertClassName(classType.getName());
+    }
+
     private String generateSingleOpCond(SingleOpCondInstruction singleOpCond) {
         StringBuilder code = new StringBuilder();
 
@@ -310,6 +344,11 @@ public class JasminGenerator {
     private String generateBinaryOp(BinaryOpInstruction binaryOp) {
         StringBuilder code = new StringBuilder();
 
+        if (optimize && binaryOp.getOperation().getOpType() == MUL) {
+            String shift = generateMulAsShift(binaryOp);
+            if (shift != null) return shift;
+        }
+
         code.append(jUtils.generateLoad(binaryOp.getLeftOperand()));                // load left operand
         code.append(jUtils.generateLoad(binaryOp.getRightOperand())).append(" ");   // load right operand
         code.append(jUtils.solveBinOp(binaryOp.getOperation())).append(NL);         // make operation
@@ -324,6 +363,39 @@ public class JasminGenerator {
         return code.toString();
     }
 
+    /**
+     * Multiplications by a power of two are done with a left shift, which gives the same result even on overflow.
+     *
+     * @return the shift code, or null if no operand is a power of two literal
+     */
+    private String generateMulAsShift(BinaryOpInstruction binaryOp) {
+        Element left = binaryOp.getLeftOperand();
+        Element right = binaryOp.getRightOperand();
+
+        int power = getPowerOfTwo(right);
+        Element other = left;
+        if (power < 1) {
+            power = getPowerOfTwo(left);
+            other = right;
+        }
+        if (power < 1) return null;
+
+        String code = jUtils.generateLoad(other) + "ldc " + power + NL + "ishl" + NL;
+
+        // the shift amount is pushed and then consumed by ishl
+        jUtils.updateStackLimits(1);
+        jUtils.updateStackLimits(-1);
+
+        return code;
+    }
+
+    private int getPowerOfTwo(Element element) {
+        if (!element.isLiteral()) return -1;
+
+        int value = Integer.parseInt(((LiteralElement) element).getLiteral());
+        return value > 0 && Integer.bitCount(value) == 1 ? Integer.numberOfTrailingZeros(value) : -1;
+    }
+
     private String generateReturn(ReturnInstruction returnInst) {
         StringBuilder code = new StringBuilder();
 
@@ -0,0 +1,222 @@
+package pt.up.fe.comp2024.backend;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Peephole optimizer over the instructions of a Jasmin method, one instruction or label per line.
+ * <p>
+ * Each rule looks at a window of consecutive lines and returns the lines that replace them, or null if it doesn't
+ * apply. The rules slide over the method until none of them changes it. They only ever lower the stack usage, so the
+ * limits computed during the generation are still valid.
+ */
+public class JasminPeephole {
+
+    private static final Pattern STORE = Pattern.compile("([ia])store[_ ](\\d+)");
+    private static final Pattern LOAD = Pattern.compile("([ia])load[_ ](\\d+)");
+    private static final Pattern IINC = Pattern.compile("iinc (\\d+) .*");
+    private static final Pattern PUSH = Pattern.compile("[ia]load[_ ]\\d+|ldc .*|iconst_\\w+|[bs]ipush .*|dup");
+    private static final Pattern CONSTANT = Pattern.compile("ldc (-?\\d+)|iconst_(\\d)");
+    private static final Pattern JUMP = Pattern.compile("(goto|if\\w*) (\\w+)");
+    private static final Pattern COMPARISON = Pattern.compile("(if_icmp\\w\\w|if\\w\\w) (\\w+)");
+
+    private static final Map<String, String> NEGATED = Map.of(
+            "lt", "ge", "ge", "lt",
+            "gt", "le", "le", "gt",
+            "eq", "ne", "ne", "eq");
+
+    private final List<Rule> rules;
+
+    // number of loads of each local variable and of jumps to each label, refreshed after every change
+    private final Map<String, Integer> loads = new HashMap<>();
+    private final Map<String, Integer> jumps = new HashMap<>();
+
+    public JasminPeephole() {
+        this.rules = List.of(
+                new Rule(2, this::removeStoreLoad),
+                new Rule(1, this::removeDeadStore),
+                new Rule(2, this::removePushPop),
+                new Rule(2, this::foldConstantBranch),
+                new Rule(2, this::removeGotoNext),
+                new Rule(3, this::invertBranchOverGoto),
+                new Rule(2, this::removeUnreachable),
+                new Rule(1, this::removeUnusedLabel),
+                new Rule(7, this::foldComparisonBranch));
+    }
+
+    public List<String> optimize(List<String> instructions) {
+        List<String> code = new ArrayList<>(instructions);
+        countUses(code);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (int i = 0; i < code.size(); i++) {
+                for (Rule rule : rules) {
+                    if (i + rule.size > code.size()) continue;
+
+                    List<String> window = code.subList(i, i + rule.size);
+                    List<String> replacement = rule.rewrite.apply(window);
+                    if (replacement == null) continue;
+
+                    window.clear();
+                    window.addAll(replacement);
+                    countUses(code);
+                    changed = true;
+                    break;
+                }
+            }
+        }
+
+        return code;
+    }
+
+    private void countUses(List<String> code) {
+        loads.clear();
+        jumps.clear();
+
+        for (String inst : code) {
+            Matcher load = LOAD.matcher(inst);
+            Matcher iinc = IINC.matcher(inst);
+            Matcher jump = JUMP.matcher(inst);
+
+            if (load.matches()) loads.merge(load.group(2), 1, Integer::sum);
+            else if (iinc.matches()) loads.merge(iinc.group(1), 1, Integer::sum);
+            else if (jump.matches()) jumps.merge(jump.group(2), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * "store x; load x" leaves the value on the stack when that is the only load of x.
+     */
+    private List<String> removeStoreLoad(List<String> window) {
+        Matcher store = STORE.matcher(window.get(0));
+        Matcher load = LOAD.matcher(window.get(1));
+
+        if (store.matches() && load.matches() && store.group(1).equals(load.group(1))
+                && store.group(2).equals(load.group(2)) && loads.get(load.group(2)) == 1) {
+            return List.of();
+        }
+
+        return null;
+    }
+
+    /**
+     * A store to a local variable that is never loaded only needs to drop the value.
+     */
+    private List<String> removeDeadStore(List<String> window) {
+        Matcher store = STORE.matcher(window.get(0));
+        return store.matches() && !loads.containsKey(store.group(2)) ? List.of("pop") : null;
+    }
+
+    private List<String> removePushPop(List<String> window) {
+        return PUSH.matcher(window.get(0)).matches() && window.get(1).equals("pop") ? List.of() : null;
+    }
+
+    /**
+     * "ldc c; ifne l" either always or never jumps.
+     */
+    private List<String> foldConstantBranch(List<String> window) {
+        Matcher constant = CONSTANT.matcher(window.get(0));
+        Matcher jump = JUMP.matcher(window.get(1));
+        if (!constant.matches() || !jump.matches()) return null;
+
+        int value = Integer.parseInt(constant.group(1) != null ? constant.group(1) : constant.group(2));
+        String condition = jump.group(1);
+        if (!condition.equals("ifne") && !condition.equals("ifeq")) return null;
+
+        boolean taken = condition.equals("ifne") ? value != 0 : value == 0;
+        return taken ? List.of("goto " + jump.group(2)) : List.of();
+    }
+
+    private List<String> removeGotoNext(List<String> window) {
+        String label = label(window.get(1));
+        return label != null && window.get(0).equals("goto " + label) ? List.of(window.get(1)) : null;
+    }
+
+    /**
+     * "if a; goto b; a:" is the same as "if not b; a:".
+     */
+    private List<String> invertBranchOverGoto(List<String> window) {
+        Matcher branch = COMPARISON.matcher(window.get(0));
+        Matcher jump = JUMP.matcher(window.get(1));
+        if (!branch.matches() || !jump.matches() || !jump.group(1).equals("goto")
+                || !window.get(2).equals(branch.group(2) + ":")) {
+            return null;
+        }
+
+        return List.of(negate(branch.group(1)) + " " + jump.group(2), window.get(2));
+    }
+
+    /**
+     * Nothing after an unconditional jump or a return is executed until the next label.
+     */
+    private List<String> removeUnreachable(List<String> window) {
+        String inst = window.get(0);
+        boolean endsFlow = inst.startsWith("goto ") || inst.endsWith("return") || inst.equals("athrow");
+
+        return endsFlow && !isLabel(window.get(1)) ? List.of(inst) : null;
+    }
+
+    private List<String> removeUnusedLabel(List<String> window) {
+        String label = label(window.get(0));
+        return label != null && !jumps.containsKey(label) ? List.of() : null;
+    }
+
+    /**
+     * A comparison pushed as 0 or 1 and then tested, i.e. "if_icmplt a; ldc 0; goto b; a: ldc 1; b: ifne l", jumps
+     * directly to the final label.
+     */
+    private List<String> foldComparisonBranch(List<String> window) {
+        Matcher comparison = COMPARISON.matcher(window.get(0));
+        Matcher test = JUMP.matcher(window.get(6));
+        if (!comparison.matches() || !test.matches()) return null;
+
+        String trueLabel = comparison.group(2);
+        String skipLabel = label(window.get(5));
+        boolean isPattern = window.get(1).equals("ldc 0")
+                && window.get(2).equals("goto " + skipLabel)
+                && window.get(3).equals(trueLabel + ":")
+                && window.get(4).equals("ldc 1")
+                && jumps.get(trueLabel) == 1 && jumps.get(skipLabel) == 1;
+        if (!isPattern) return null;
+
+        return switch (test.group(1)) {
+            case "ifne" -> List.of(comparison.group(1) + " " + test.group(2));
+            case "ifeq" -> List.of(negate(comparison.group(1)) + " " + test.group(2));
+            default -> null;
+        };
+    }
+
+    /**
+     * @return the branch instruction with the opposite condition, e.g. "if_icmpge" for "if_icmplt"
+     */
+    private String negate(String condition) {
+        String suffix = condition.substring(condition.length() - 2);
+        return condition.substring(0, condition.length() - 2) + NEGATED.get(suffix);
+    }
+
+    private String label(String line) {
+        return isLabel(line) ? line.substring(0, line.length() - 1) : null;
+    }
+
+    private boolean isLabel(String line) {
+        return line.endsWith(":");
+    }
+
+    private static class Rule {
+        private final int size;
+        private final Function<List<String>, List<String>> rewrite;
+
+        private Rule(int size, Function<List<String>, List<String>> rewrite) {
+            this.size = size;
+            this.rewrite = rewrite;
+        }
+    }
+}
@@ -149,6 +149,20 @@ public class MyJasminUtils {
     }
 
     public int generateInvSpecial(CallInstruction callInst, StringBuilder code) {
+        var methodName = callInst.getMethodName().toString().replace("\"", "");
+
+        // a devirtualized call to a method of this class, rather than a constructor call
+        if (!methodName.contains("<init>")) {
+            code.append(generateLoad(callInst.getOperands().get(0)));
+
+            for (Element arg : callInst.getArguments())
+                code.append(generateLoad(arg));
+
+            code.append("invokespecial ").append(ollirResult.getSymbolTable().getClassName());
+            code.append(getMethodParams(callInst, solveNameColonDot(methodName)));
+
+            return callInst.getArguments().size();
+        }
 
         code.append(generateLoad(callInst.getOperands().get(0))).append("invokespecial ");
 
@@ -223,7 +237,12 @@ public class MyJasminUtils {
             case MUL -> "imul";
             case DIV -> "idiv";
             case SUB -> "isub";
-            case ANDB -> "iand";
+            case ANDB, AND -> "iand";
+            case OR -> "ior";
+            case XOR -> "ixor";
+            case SHL -> "ishl";
+            case SHR -> "ishr";
+            case SHRR -> "iushr";
             case NOTB -> "ifeq";
             case LTH -> "if_icmplt";
             case GTH -> "if_icmpgt";
@@ -1,27 +1,95 @@
 package pt.up.fe.comp2024.optimization;
 
 import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.ollir.JmmOptimization;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.optimization.passes.AlgebraicSimplification;
+import pt.up.fe.comp2024.optimization.passes.CommonSubexpressionElimination;
+import pt.up.fe.comp2024.optimization.passes.ConstantCallFolding;
+import pt.up.fe.comp2024.optimization.passes.CopyPropagation;
+import pt.up.fe.comp2024.optimization.passes.Devirtualization;
+import pt.up.fe.comp2024.optimization.passes.LoopStrengthReduction;
+import pt.up.fe.comp2024.optimization.passes.MethodInlining;
+import pt.up.fe.comp2024.optimization.passes.ScalarReplacement;
+import pt.up.fe.comp2024.optimization.passes.TailCallElimination;
+import pt.up.fe.comp2024.optimization.passes.VarargsHoisting;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 
 public class JmmOptimizationImpl implements JmmOptimization {
 
+    private final List<OllirPass> ollirPasses;
+
+    // the result of toOllir, which already went through the passes when optimizing
+    private OllirResult optimizedResult;
+
+    public JmmOptimizationImpl() {
+
+        this.ollirPasses = List.of(
+                new VarargsHoisting(),
+                new TailCallElimination(),
+                new MethodInlining(),
+                new ScalarReplacement(),
+                new ConstantCallFolding(),
+                new AlgebraicSimplification(),
+                new CommonSubexpressionElimination(),
+                new LoopStrengthReduction(),
+                new CopyPropagation(),
+                new Devirtualization());
+    }
+
     @Override
     public OllirResult toOllir(JmmSemanticsResult semanticsResult) {
 
         var visitor = new OllirGeneratorVisitor(semanticsResult.getSymbolTable());
         var ollirCode = visitor.visit(semanticsResult.getRootNode());
 
-        return new OllirResult(semanticsResult, ollirCode, Collections.emptyList());
+        if (!CompilerConfig.getOptimize(semanticsResult.getConfig())) {
+            return new OllirResult(semanticsResult, ollirCode, Collections.emptyList());
+        }
+
+        // OllirResult parses the code it is given, so the passes run before it is built to only parse the final code
+        ollirCode = runPasses(ollirCode, semanticsResult.getSymbolTable()).orElse(ollirCode);
+        optimizedResult = new OllirResult(semanticsResult, ollirCode, Collections.emptyList());
+
+        return optimizedResult;
     }
 
     @Override
     public OllirResult optimize(OllirResult ollirResult) {
 
-        //TODO: Do your OLLIR-based optimizations here
+        if (!CompilerConfig.getOptimize(ollirResult.getConfig()) || ollirResult == optimizedResult) {
+            return ollirResult;
+        }
+
+        var table = ollirResult.getSymbolTable();
+        var code = runPasses(ollirResult.getOllirCode(), table);
+
+        if (code.isEmpty()) {
+            return ollirResult;
+        }
+
+        // OllirResult can only be rebuilt from a semantics result, which keeps the symbol table and the reports
+        var semanticsResult = new JmmSemanticsResult((JmmNode) null, table, ollirResult.getReports(), ollirResult.getConfig());
+        return new OllirResult(semanticsResult, code.get(), Collections.emptyList());
+    }
+
+    /**
+     * @return the optimized OLLIR code, or empty if no pass changed it
+     */
+    private Optional<String> runPasses(String ollirCode, SymbolTable table) {
+        var code = OllirCode.parse(ollirCode);
+
+        boolean changed = false;
+        for (var ollirPass : ollirPasses) {
+            changed |= ollirPass.optimize(code, table);
+        }
 
-        return ollirResult;
+        return changed ? Optional.of(code.toString()) : Optional.empty();
     }
 }
@@ -0,0 +1,248 @@
+package pt.up.fe.comp2024.optimization;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * What a method of the class being compiled may do when called, including through the methods it calls.
+ * <p>
+ * The summaries of all the methods are computed together over the call graph of the class, so that the passes can
+ * tell a call to a method that only reads some fields from a call with arbitrary side effects. Calls to methods of
+ * other classes, and constructors of classes with a super class, have unknown effects. So do virtual calls on objects
+ * that may belong to a subclass overriding the method, e.g. on "this" or on parameters. A method that loops, or that is
+ * on a cycle of the call graph, may never return, so calls to it are never removed or folded.
+ */
+public class MethodSummary {
+
+    private static final Pattern CALL = Pattern.compile("(invokevirtual|invokespecial|invokestatic)\\(([^,]+?), \"([^\"]+)\"");
+    private static final Pattern ASSIGN = Pattern.compile("(\\S+?)\\s*:=(\\.[\\w.]+) (.+);");
+    private static final Pattern FIELD_READ = Pattern.compile("getfield\\([^,]+, (\\w+)\\.");
+    private static final Pattern FIELD_WRITE = Pattern.compile("putfield\\([^,]+, (\\w+)\\.");
+    private static final Pattern ARRAY_ACCESS = Pattern.compile("\\w\\[|arraylength\\(");
+    private static final Pattern DIVISION = Pattern.compile(" /\\.\\w+ ");
+    private static final Pattern RETURN = Pattern.compile("ret\\.[\\w.]+ (.+);");
+    private static final Pattern LITERAL = Pattern.compile("-?\\d+\\.(i32|bool)");
+
+    private final Set<String> fieldsRead = new HashSet<>();
+    private final Set<String> fieldsWritten = new HashSet<>();
+    private final Set<String> callees = new HashSet<>();
+    private boolean readsArrays;
+    private boolean writesArrays;
+    private boolean mayThrow;
+    private boolean mayNotReturn;
+    private boolean hasUnknownEffects;
+    private String constantReturn;
+
+    /**
+     * Computes the summaries of all the methods of the class.
+     *
+     * @return the summaries indexed by method name
+     */
+    public static Map<String, MethodSummary> summarize(OllirCode code, SymbolTable table) {
+        Map<String, MethodSummary> summaries = new HashMap<>();
+
+        for (OllirMethodCode method : code.getMethods()) {
+            MethodSummary summary = new MethodSummary();
+            Set<String> instances = method.getExactInstances(table.getClassName());
+            for (String inst : method.getBody()) {
+                summary.addInstruction(inst, instances, code, table);
+            }
+            summary.constantReturn = findConstantReturn(method);
+            summary.mayNotReturn = method.hasBackwardJump();
+            summaries.put(method.getName(), summary);
+        }
+
+        for (var entry : summaries.entrySet()) {
+            entry.getValue().mayNotReturn |= isRecursive(entry.getKey(), summaries);
+        }
+
+        // the effects of the callees are merged into their callers until nothing changes, which also covers recursion
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (MethodSummary summary : summaries.values()) {
+                for (String callee : summary.callees) {
+                    changed |= summary.merge(summaries.get(callee));
+                }
+            }
+        }
+
+        return summaries;
+    }
+
+    /**
+     * @param instances the variables known to hold objects of exactly the class, see
+     *                  {@link OllirMethodCode#getExactInstances}
+     * @return the name of the method of the class called by the instruction, if it calls one
+     */
+    public static Optional<String> getCalledMethod(String inst, Set<String> instances, OllirCode code,
+                                                   SymbolTable table) {
+        Matcher call = CALL.matcher(inst);
+        if (!call.find()) return Optional.empty();
+
+        String caller = call.group(2);
+        String className = table.getClassName();
+        boolean isClassCall = switch (call.group(1)) {
+            case "invokestatic" -> caller.equals(className);
+            case "invokespecial" -> caller.endsWith("." + className);
+            default -> caller.endsWith("." + className) && instances.contains(caller.substring(0, caller.indexOf('.')));
+        };
+
+        String name = call.group(3);
+        if (!isClassCall || code.getMethod(name).isEmpty()) return Optional.empty();
+
+        return Optional.of(name);
+    }
+
+    /**
+     * @return the summary of the method of the class called by the instruction, or empty if it doesn't call one
+     */
+    public static Optional<MethodSummary> getCallee(String inst, Set<String> instances,
+                                                    Map<String, MethodSummary> summaries, OllirCode code,
+                                                    SymbolTable table) {
+        return getCalledMethod(inst, instances, code, table).map(summaries::get);
+    }
+
+    private void addInstruction(String inst, Set<String> instances, OllirCode code, SymbolTable table) {
+        Matcher fieldRead = FIELD_READ.matcher(inst);
+        while (fieldRead.find()) {
+            fieldsRead.add(fieldRead.group(1));
+        }
+
+        Matcher fieldWrite = FIELD_WRITE.matcher(inst);
+        if (fieldWrite.find()) fieldsWritten.add(fieldWrite.group(1));
+
+        Matcher assign = ASSIGN.matcher(inst);
+        boolean isArrayStore = assign.matches() && assign.group(1).contains("[");
+        writesArrays |= isArrayStore;
+
+        String read = isArrayStore ? assign.group(3) : inst;
+        boolean accessesArray = ARRAY_ACCESS.matcher(read).find();
+        readsArrays |= accessesArray;
+        mayThrow |= isArrayStore || accessesArray || DIVISION.matcher(inst).find() || inst.contains("new(array");
+
+        Matcher call = CALL.matcher(inst);
+        if (!call.find()) return;
+
+        if (call.group(3).equals("<init>")) {
+            // the constructors of this class only call the constructor of Object, unless there is a super class
+            String superClass = table.getSuper();
+            boolean hasSuper = superClass != null && !superClass.isEmpty() && !superClass.equals("Object");
+            hasUnknownEffects |= hasSuper || !call.group(2).endsWith("." + table.getClassName());
+            return;
+        }
+
+        Optional<String> callee = getCalledMethod(inst, instances, code, table);
+        if (callee.isPresent()) callees.add(callee.get());
+        else hasUnknownEffects = true;
+    }
+
+    /**
+     * @return true if the method can call itself, directly or through other methods of the class
+     */
+    private static boolean isRecursive(String name, Map<String, MethodSummary> summaries) {
+        Set<String> visited = new HashSet<>();
+        Deque<String> worklist = new ArrayDeque<>(summaries.get(name).callees);
+
+        while (!worklist.isEmpty()) {
+            String callee = worklist.poll();
+            if (callee.equals(name)) return true;
+            if (visited.add(callee) && summaries.containsKey(callee)) worklist.addAll(summaries.get(callee).callees);
+        }
+
+        return false;
+    }
+
+    private boolean merge(MethodSummary callee) {
+        boolean changed = fieldsRead.addAll(callee.fieldsRead) | fieldsWritten.addAll(callee.fieldsWritten);
+
+        boolean readsArrays = this.readsArrays || callee.readsArrays;
+        boolean writesArrays = this.writesArrays || callee.writesArrays;
+        boolean mayThrow = this.mayThrow || callee.mayThrow;
+        boolean mayNotReturn = this.mayNotReturn || callee.mayNotReturn;
+        boolean hasUnknownEffects = this.hasUnknownEffects || callee.hasUnknownEffects;
+
+        changed |= readsArrays != this.readsArrays || writesArrays != this.writesArrays
+                || mayThrow != this.mayThrow || mayNotReturn != this.mayNotReturn
+                || hasUnknownEffects != this.hasUnknownEffects;
+
+        this.readsArrays = readsArrays;
+        this.writesArrays = writesArrays;
+        this.mayThrow = mayThrow;
+        this.mayNotReturn = mayNotReturn;
+        this.hasUnknownEffects = hasUnknownEffects;
+
+        return changed;
+    }
+
+    /**
+     * @return the literal returned by every return of the method, or null if there isn't one
+     */
+    private static String findConstantReturn(OllirMethodCode method) {
+        String constant = null;
+
+        for (String inst : method.getBody()) {
+            Matcher ret = RETURN.matcher(inst);
+            if (!ret.matches()) continue;
+
+            String value = ret.group(1);
+            if (!LITERAL.matcher(value).matches() || (constant != null && !constant.equals(value))) return null;
+            constant = value;
+        }
+
+        return constant;
+    }
+
+    public Set<String> getFieldsRead() {
+        return fieldsRead;
+    }
+
+    public Set<String> getFieldsWritten() {
+        return fieldsWritten;
+    }
+
+    public boolean readsArrays() {
+        return readsArrays;
+    }
+
+    public boolean writesArrays() {
+        return writesArrays;
+    }
+
+    public boolean hasUnknownEffects() {
+        return hasUnknownEffects;
+    }
+
+    /**
+     * @return true if calling the method doesn't change any state visible to the caller
+     */
+    public boolean isPure() {
+        return !hasUnknownEffects && fieldsWritten.isEmpty() && !writesArrays;
+    }
+
+    /**
+     * @return true if a call to the method whose result is unused can be removed, i.e. it is pure, can't throw and
+     * always returns
+     */
+    public boolean isRemovable() {
+        return isPure() && !mayThrow && !mayNotReturn;
+    }
+
+    /**
+     * @return the literal the method always returns, or null if it doesn't always return the same literal or may never
+     * return
+     */
+    public String getConstantReturn() {
+        return mayNotReturn ? null : constantReturn;
+    }
+}
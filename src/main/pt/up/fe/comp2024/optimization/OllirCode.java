@@ -0,0 +1,95 @@
+package pt.up.fe.comp2024.optimization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Line based view of the OLLIR code of a class, so that passes can rewrite the body of each method.
+ */
+public class OllirCode {
+
+    private final List<String> head;
+    private final List<OllirMethodCode> methods;
+    private final List<String> tail;
+
+    private OllirCode(List<String> head, List<OllirMethodCode> methods, List<String> tail) {
+        this.head = head;
+        this.methods = methods;
+        this.tail = tail;
+    }
+
+    public static OllirCode parse(String ollirCode) {
+        List<String> head = new ArrayList<>();
+        List<OllirMethodCode> methods = new ArrayList<>();
+        List<String> tail = new ArrayList<>();
+
+        String header = null;
+        List<String> body = new ArrayList<>();
+
+        for (String line : ollirCode.split("\n")) {
+            String trimmed = line.trim();
+
+            if (header != null) {
+                if (trimmed.equals("}")) {
+                    methods.add(new OllirMethodCode(header, body));
+                    header = null;
+                    body = new ArrayList<>();
+                } else if (!trimmed.isEmpty()) {
+                    body.add(trimmed);
+                }
+            } else if (trimmed.startsWith(".method ")) {
+                header = trimmed;
+            } else if (methods.isEmpty()) {
+                head.add(line);
+            } else if (!trimmed.isEmpty()) {
+                tail.add(line);
+            }
+        }
+
+        return new OllirCode(head, methods, tail);
+    }
+
+    /**
+     * @return the lines before the first method, i.e. imports, class declaration and fields
+     */
+    public List<String> getHead() {
+        return head;
+    }
+
+    public List<OllirMethodCode> getMethods() {
+        return methods;
+    }
+
+    /**
+     * @return the method with the given name, or empty if there is none or it is overloaded, since then a call by name
+     * alone doesn't tell which method it is
+     */
+    public Optional<OllirMethodCode> getMethod(String name) {
+        var found = methods.stream()
+                .filter(method -> method.getName().equals(name))
+                .limit(2)
+                .toList();
+
+        return found.size() == 1 ? Optional.of(found.get(0)) : Optional.empty();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder code = new StringBuilder();
+
+        for (String line : head) {
+            code.append(line).append("\n");
+        }
+
+        for (OllirMethodCode method : methods) {
+            code.append(method).append("\n");
+        }
+
+        for (String line : tail) {
+            code.append(line).append("\n");
+        }
+
+        return code.toString();
+    }
+}
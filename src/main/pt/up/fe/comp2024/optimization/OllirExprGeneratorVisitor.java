@@ -5,9 +5,11 @@ import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.ast.PreorderJmmVisitor;
+import pt.up.fe.comp2024.ast.KindDispatch;
 import pt.up.fe.comp2024.ast.TypeUtils;
 
 import java.util.List;
+import java.util.function.BiFunction;
 
 import static pt.up.fe.comp2024.ast.Kind.*;
 
@@ -20,12 +22,26 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
     private static final String ASSIGN = ":=";
     private final String END_STMT = ";\n";
 
+    // shortest run of the same literal in an array literal that is stored with a loop
+    private static final int MIN_FILL_LOOP_RUN = 8;
+
+    // fewest literals of an array literal packed into a single constant, below which the loop unpacking them is longer
+    // than storing them one by one. Eight literals fit in an int when they are all smaller than 14
+    private static final int MIN_PACKED_RUN = 8;
+
     private final SymbolTable table;
 
+    private final KindDispatch<Void, OllirExprResult> dispatch = new KindDispatch<>();
+
     public OllirExprGeneratorVisitor(SymbolTable table) {
         this.table = table;
     }
 
+    @Override
+    protected BiFunction<JmmNode, Void, OllirExprResult> getVisit(JmmNode node) {
+        return dispatch.get(node, super::getVisit);
+    }
+
     @Override
     protected void buildVisitor() {
         addVisit(VAR_REF_EXPR, this::visitVarRef);
@@ -53,7 +69,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
             computation.append("arraylength(").append(node.getChild(0).get("name")).append(".array.i32).i32.i32").append(END_STMT);
         }
 
-        return new OllirExprResult(code, computation.toString());
+        return new OllirExprResult(code, computation);
     }
 
     private OllirExprResult visitAccessExpr(JmmNode node, Void unused) {
@@ -66,7 +82,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         String varType = OptUtils.toOllirType(TypeUtils.getExprType(node.getChild(0), table));
         computation.append(code).append(" :=.i32 ").append(node.getChild(0).get("name")).append(varType).append("[").append(position.getCode()).append("].i32").append(END_STMT);
 
-        return new OllirExprResult(code, computation.toString());
+        return new OllirExprResult(code, computation);
     }
 
     private OllirExprResult visitArrayLength(JmmNode node, Void unused) {
@@ -76,7 +92,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
 
         computation.append(arrayResult.getComputation());
 
-        Type resType = new Type("int", false);
+        Type resType = TypeUtils.INT_TYPE;
         String resOllirType = OptUtils.toOllirType(resType);
         String code = OptUtils.getTemp(false) + resOllirType;
 
@@ -85,22 +101,138 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
                 .append("arraylength(").append(arrayResult.getCode()).append(")").append(resOllirType)
                 .append(END_STMT);
 
-        return new OllirExprResult(code, computation.toString());
+        return new OllirExprResult(code, computation);
     }
 
     private OllirExprResult visitElementExpr(JmmNode node, Void unused) {
         StringBuilder computation = new StringBuilder();
         String code = "__varargs_array_" + OptUtils.getLabel() + ".array.i32";
         String temp = OptUtils.getTemp(false) + ".array.i32";
-        computation.append(temp).append(" :=.array.i32 new(array, ").append(node.getChildren().size()).append(".i32).array.i32").append(END_STMT);
+        int size = node.getChildren().size();
+        computation.append(temp).append(" :=.array.i32 new(array, ").append(size).append(".i32).array.i32").append(END_STMT);
         computation.append(code).append(" :=.array.i32 ").append(temp).append(END_STMT);
-        for (int i = 0; i < node.getChildren().size(); i++) {
-            OllirExprResult code2 = this.visit(node.getChild(i));
-            computation.append(code2.getComputation());
-            computation.append(code).append("["+i+".i32].i32 :=.i32 ").append(code2.getCode()).append(END_STMT);
+
+        int i = 0;
+        while (i < size) {
+            JmmNode element = node.getChild(i);
+
+            if (!INTEGER_LITERAL.check(element)) {
+                OllirExprResult code2 = this.visit(element);
+                computation.append(code2.getComputation());
+                computation.append(code).append("["+i+".i32].i32 :=.i32 ").append(code2.getCode()).append(END_STMT);
+                i++;
+                continue;
+            }
+
+            // runs of the same literal are stored together, and zeros not at all since new arrays are zeroed. Other
+            // small literals are packed into a single constant, as digits in a base larger than all of them
+            String value = element.get("value");
+            int end = i + 1;
+            while (end < size && INTEGER_LITERAL.check(node.getChild(end)) && node.getChild(end).get("value").equals(value)) {
+                end++;
+            }
+
+            if (Integer.parseInt(value) == 0) {
+                i = end;
+            } else if (end - i >= MIN_FILL_LOOP_RUN) {
+                computation.append(generateFillLoop(code, i, end, value + ".i32"));
+                i = end;
+            } else if (countPackable(node, i) >= MIN_PACKED_RUN) {
+                int packed = countPackable(node, i);
+                computation.append(generateUnpackLoop(code, i, node.getChildren().subList(i, i + packed)));
+                i += packed;
+            } else {
+                computation.append(code).append("["+i+".i32].i32 :=.i32 ").append(value).append(".i32").append(END_STMT);
+                i++;
+            }
         }
 
-        return new OllirExprResult(code, computation.toString());
+        return new OllirExprResult(code, computation);
+    }
+
+    /**
+     * @return how many literals from the given position fit in a single int when packed by {@link #generateUnpackLoop},
+     * stopping before a run long enough to be stored with a fill loop
+     */
+    private int countPackable(JmmNode node, int start) {
+        long base = 2;
+        int count = 0;
+
+        for (int i = start; i < node.getChildren().size(); i++) {
+            JmmNode element = node.getChild(i);
+            if (!INTEGER_LITERAL.check(element)) break;
+
+            int end = i + 1;
+            while (end < node.getChildren().size() && INTEGER_LITERAL.check(node.getChild(end))
+                    && node.getChild(end).get("value").equals(element.get("value"))) {
+                end++;
+            }
+            if (end - i >= MIN_FILL_LOOP_RUN) break;
+
+            long elementBase = Math.max(base, Long.parseLong(element.get("value")) + 1);
+            if (Math.pow(elementBase, count + 1) > Integer.MAX_VALUE) break;
+
+            base = elementBase;
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Stores the given literals from a position of an array by unpacking them from a single constant, where each one is
+     * a digit in a base larger than all of them, the first being the least significant. The loop stops once the
+     * remaining digits are all zero, since new arrays are zeroed.
+     */
+    private String generateUnpackLoop(String array, int start, List<JmmNode> literals) {
+        int base = 2;
+        for (JmmNode literal : literals) {
+            base = Math.max(base, Integer.parseInt(literal.get("value")) + 1);
+        }
+
+        long packed = 0;
+        for (int i = literals.size() - 1; i >= 0; i--) {
+            packed = packed * base + Integer.parseInt(literals.get(i).get("value"));
+        }
+
+        StringBuilder computation = new StringBuilder();
+        String index = OptUtils.getTemp(false) + ".i32";
+        String word = OptUtils.getTemp(false) + ".i32";
+        String quotient = OptUtils.getTemp(false) + ".i32";
+        String multiple = OptUtils.getTemp(false) + ".i32";
+        String digit = OptUtils.getTemp(false) + ".i32";
+        String loop = "unpack_" + OptUtils.getLabel();
+
+        computation.append(index).append(" :=.i32 ").append(start).append(".i32").append(END_STMT);
+        computation.append(word).append(" :=.i32 ").append(packed).append(".i32").append(END_STMT);
+        computation.append(loop).append(":\n");
+        computation.append(quotient).append(" :=.i32 ").append(word).append(" /.i32 ").append(base).append(".i32").append(END_STMT);
+        computation.append(multiple).append(" :=.i32 ").append(quotient).append(" *.i32 ").append(base).append(".i32").append(END_STMT);
+        computation.append(digit).append(" :=.i32 ").append(word).append(" -.i32 ").append(multiple).append(END_STMT);
+        computation.append(array).append("[").append(index).append("].i32 :=.i32 ").append(digit).append(END_STMT);
+        computation.append(word).append(" :=.i32 ").append(quotient).append(END_STMT);
+        computation.append(index).append(" :=.i32 ").append(index).append(" +.i32 1.i32").append(END_STMT);
+        computation.append("if (0.i32 <.bool ").append(word).append(") goto ").append(loop).append(END_STMT);
+
+        return computation.toString();
+    }
+
+    /**
+     * Stores the same value in the positions [start, end) of an array with a loop. The comparison is made by the branch
+     * itself, since the backend only turns a comparison into a jump there.
+     */
+    private String generateFillLoop(String array, int start, int end, String value) {
+        StringBuilder computation = new StringBuilder();
+        String index = OptUtils.getTemp(false) + ".i32";
+        String loop = "fill_" + OptUtils.getLabel();
+
+        computation.append(index).append(" :=.i32 ").append(start).append(".i32").append(END_STMT);
+        computation.append(loop).append(":\n");
+        computation.append(array).append("[").append(index).append("].i32 :=.i32 ").append(value).append(END_STMT);
+        computation.append(index).append(" :=.i32 ").append(index).append(" +.i32 1.i32").append(END_STMT);
+        computation.append("if (").append(index).append(" <.bool ").append(end).append(".i32) goto ").append(loop).append(END_STMT);
+
+        return computation.toString();
     }
   /*tmp2.array.i32 :=.array.i32 new(array, 4.i32).array.i32;
     __varargs_array_0.array.i32 :=.array.i32 tmp2.array.i32;
@@ -123,7 +255,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         }
         code.append(").array.i32");
 
-        return new OllirExprResult(code.toString(), computation.toString());
+        return new OllirExprResult(code.toString(), computation);
     }
 
     private OllirExprResult visitNot(JmmNode node, Void unused) {
@@ -135,11 +267,11 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
             computation.append(this.visitBoolean(node.getChild(0), null).getCode());
         else if (node.getChild(0).getKind().equals("BinaryExpr")) {
             OllirExprResult result = this.visitBinExpr(node.getChild(0), null);
-            computation = new StringBuilder(result.getComputation() + END_STMT + computation);
+            computation.insert(0, END_STMT).insert(0, result.getComputation());
             computation.append(result.getCode());
         } else if (node.getChild(0).getKind().equals("VarRefExpr")) {
             OllirExprResult result = this.visitVarRef(node.getChild(0), null);
-            computation = new StringBuilder(result.getComputation() + END_STMT + computation);
+            computation.insert(0, END_STMT).insert(0, result.getComputation());
             computation.append(result.getCode());
         }
         computation.append(END_STMT);
@@ -173,7 +305,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
                     .append("invokespecial(").append(code).append(", \"<init>\").V").append(END_STMT);
         }
 
-        return new OllirExprResult(code, computation.toString());
+        return new OllirExprResult(code, computation);
     }
 
     // tmp2.Simple :=.Simple new(Simple).Simple;
@@ -195,7 +327,11 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
 
         String invoke = "invokevirtual(";
         List<String> imports = table.getImports();
-        if (imports.contains(TypeUtils.getExprType(node.getChild(0), table).getName())) {
+        Type receiverType = TypeUtils.getExprType(node.getChild(0), table);
+        // a call on an imported class itself, and not on an object of that class
+        boolean isStatic = imports.contains(receiverType.getName())
+                && node.getChild(0).getOptional("name").map(receiverType.getName()::equals).orElse(false);
+        if (isStatic) {
             invoke = "invokestatic(";
         }
 
@@ -219,13 +355,13 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         } else if (isExtended) {
             computation.append(node.getChild(0).get("name")).append(".").append(table.getSuper()).append(", \"").append(node.get("func")).append("\"");
         } else {
-            var varType = OptUtils.toOllirType(TypeUtils.getExprType(node.getChild(0), table));
+            var varType = isStatic ? "" : OptUtils.toOllirType(receiverType);
             computation.append(node.getChild(0).get("name")).append(varType).append(", \"").append(node.get("func")).append("\"");
         }
 
 
         if(OptUtils.methodHasVarArgs(node, table)){
-            int param_size = table.getParameters(node.get("func")).size();
+            int param_size = OptUtils.getNumberOfParams(node, table);
             List<JmmNode> params = node.getChildren();
             for (int i = 1; i < param_size; i++) {
                 Type paramType = TypeUtils.getExprType(params.get(i), table);
@@ -235,16 +371,16 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
                 String paramName = "";
                 if (param.getKind().equals("VarRefExpr")) paramName = isFunctionParam(params.get(i)) + param.get("name");
                 else if (param.hasAttribute("value"))
-                    paramName = param.get("value"); // Node BinaryExpr does not contain attribute 'value'
+                    paramName = getLiteralValue(param); // Node BinaryExpr does not contain attribute 'value'
                 if (param.getKind().equals("AccessExpr")) {
                     OllirExprResult access = this.visitAccessExpr(param, null);
                     paramName = access.getCode();
-                    computation = new StringBuilder(access.getComputation() + computation);
+                    computation.insert(0, access.getComputation());
                     computation.append(", ").append(paramName);
                 } else if (param.getKind().equals("FunctionCallExpr")) {
                     OllirExprResult funcCode = this.visit(node.getChild(i));
 
-                    computation = new StringBuilder(funcCode.getComputation() + computation);
+                    computation.insert(0, funcCode.getComputation());
                 /*String type = OptUtils.toOllirType(TypeUtils.getExprType(node.getChild(i), table));
                 String temp = OptUtils.getTemp(false) + type;
                 computation.append(temp).append(" :=").append(type).append(" ").append(node.getChildren().get(i).getChild(0).get("name")).append("[").append(position.getCode()).append("].i32").append(END_STMT);
@@ -254,7 +390,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
                 else if (param.getKind().equals("ElementExpr")) {
                     OllirExprResult funcCode = this.visit(node.getChild(i));
 
-                    computation = new StringBuilder(funcCode.getComputation() + computation);
+                    computation.insert(0, funcCode.getComputation());
                     computation.append(", ").append(funcCode.getCode());
 
                 }
@@ -271,16 +407,16 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
                 String paramName = "";
                 if (param.getKind().equals("VarRefExpr")) paramName = isFunctionParam(params.get(i)) + param.get("name");
                 else if (param.hasAttribute("value"))
-                    paramName = param.get("value"); // Node BinaryExpr does not contain attribute 'value'
+                    paramName = getLiteralValue(param); // Node BinaryExpr does not contain attribute 'value'
                 if (param.getKind().equals("AccessExpr")) {
                     OllirExprResult access = this.visitAccessExpr(param, null);
                     paramName = access.getCode();
-                    computation = new StringBuilder(access.getComputation() + computation);
+                    computation.insert(0, access.getComputation());
                     computation.append(", ").append(paramName);
                 } else if (param.getKind().equals("FunctionCallExpr")) {
                     OllirExprResult funcCode = this.visit(node.getChild(i));
 
-                    computation = new StringBuilder(funcCode.getComputation() + computation);
+                    computation.insert(0, funcCode.getComputation());
                 /*String type = OptUtils.toOllirType(TypeUtils.getExprType(node.getChild(i), table));
                 String temp = OptUtils.getTemp(false) + type;
                 computation.append(temp).append(" :=").append(type).append(" ").append(node.getChildren().get(i).getChild(0).get("name")).append("[").append(position.getCode()).append("].i32").append(END_STMT);
@@ -294,23 +430,33 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         computation.append(")").append(resOllirType);
 
         computation.append(END_STMT);
-        return new OllirExprResult(code, computation.toString()); //invokevirtual(this.CompileMethodInvocation, "bar").i32;
+        return new OllirExprResult(code, computation); //invokevirtual(this.CompileMethodInvocation, "bar").i32;
     }
 
     private String generateVarArgs(JmmNode node, StringBuilder computation){
         String code = OptUtils.getTemp(false) + ".array.i32";
         int paramNr = node.getChildren().size();
-        int param_size = table.getParameters(node.get("func")).size();
+        int param_size = OptUtils.getNumberOfParams(node, table);
         computation.append(code).append(" :=.array.i32 new(array, ").append(paramNr-param_size).append(".i32).array.i32").append(END_STMT);
         String varArgsArray = OptUtils.getTemp("__varargs_array_", false) + ".array.i32";
         computation.append(varArgsArray).append(ASSIGN).append(".array.i32 ").append(code).append(END_STMT);
         for(int i = param_size; i< paramNr; i++){
+            OllirExprResult arg = this.visit(node.getChild(i));
+            computation.append(arg.getComputation());
             computation.append(varArgsArray).append("[").append(i-param_size).append(".i32].i32 :=.i32 ");
-            computation.append(this.visit(node.getChild(i)).getCode()).append(END_STMT);
+            computation.append(arg.getCode()).append(END_STMT);
         }
         return varArgsArray;
     }
 
+    /**
+     * @return the value of an integer or boolean literal as written in OLLIR, without its type
+     */
+    public String getLiteralValue(JmmNode literal) {
+        if (!BOOLEAN_LITERAL.check(literal)) return literal.get("value");
+        return literal.get("value").equals("true") ? "1" : "0";
+    }
+
     public String isFunctionParam(JmmNode node) {
         JmmNode func = TypeUtils.findAncestorOfKind(node, "MethodDecl");
         List<JmmNode> params = func.getChildren("Param");
@@ -321,7 +467,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
     }
 
     private OllirExprResult visitInteger(JmmNode node, Void unused) {
-        var intType = new Type(TypeUtils.getIntTypeName(), false);
+        var intType = TypeUtils.INT_TYPE;
         String ollirIntType = OptUtils.toOllirType(intType);
         String code = node.get("value") + ollirIntType;
 
@@ -329,7 +475,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
     }
 
     private OllirExprResult visitBoolean(JmmNode node, Void unused) {
-        var boolType = new Type("boolean", false);
+        var boolType = TypeUtils.BOOL_TYPE;
         String ollirIntType = OptUtils.toOllirType(boolType);
         String value = "0";
         if (node.get("value").equals("true")) value = "1";
@@ -399,7 +545,7 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
             computation.append(code);
             computation.append(" :=").append(resOllirType).append(" getfield(this, ");
             computation.append(fieldName).append(resOllirType).append(")").append(resOllirType).append(END_STMT);
-            return new OllirExprResult(code.toString(), computation.toString());
+            return new OllirExprResult(code.toString(), computation);
         } else {
             var id = node.get("name");
             Type type = TypeUtils.getExprType(node, table);
@@ -4,10 +4,11 @@ public class OllirExprResult {
 
     public static final OllirExprResult EMPTY = new OllirExprResult("", "");
 
-    private final String computation;
+    // kept as given, usually the builder of the visit, and only copied when appended to the computation of the parent
+    private final CharSequence computation;
     private final String code;
 
-    public OllirExprResult(String code, String computation) {
+    public OllirExprResult(String code, CharSequence computation) {
         this.code = code;
         this.computation = computation;
     }
@@ -16,11 +17,7 @@ public class OllirExprResult {
         this(code, "");
     }
 
-    public OllirExprResult(String code, StringBuilder computation) {
-        this(code, computation.toString());
-    }
-
-    public String getComputation() {
+    public CharSequence getComputation() {
         return computation;
     }
 
@@ -6,12 +6,15 @@ import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.AJmmVisitor;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.ollir.OllirUtils;
+import pt.up.fe.comp2024.ast.KindDispatch;
 import pt.up.fe.comp2024.ast.NodeUtils;
 import pt.up.fe.comp2024.ast.TypeUtils;
+import pt.up.fe.comp2024.symboltable.MethodTable;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.BiFunction;
 
 import static pt.up.fe.comp2024.ast.Kind.*;
 
@@ -32,11 +35,18 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
 
     private final OllirExprGeneratorVisitor exprVisitor;
 
+    private final KindDispatch<Void, String> dispatch = new KindDispatch<>();
+
     public OllirGeneratorVisitor(SymbolTable table) {
         this.table = table;
         exprVisitor = new OllirExprGeneratorVisitor(table);
     }
 
+    @Override
+    protected BiFunction<JmmNode, Void, String> getVisit(JmmNode node) {
+        return dispatch.get(node, super::getVisit);
+    }
+
 
     @Override
     protected void buildVisitor() {
@@ -140,12 +150,12 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
             code.append(invoke).append(node.getChildren().get(0).get("name")).append(".").append(table.getSuper()).append(", \"").append(node.get("func")).append("\"");
         }
         else {
-            String varType = resType == null ? "" : OptUtils.toOllirType(TypeUtils.getExprType(node.getChild(0), table));
+            String varType = resType == null || invoke.equals("invokestatic(") ? "" : OptUtils.toOllirType(TypeUtils.getExprType(node.getChild(0), table));
             code.append(invoke).append(node.getChildren().get(0).get("name")).append(varType).append(", \"").append(node.get("func")).append("\"");
         }
 
         if(OptUtils.methodHasVarArgs(node, table)){
-            int param_size = table.getParameters(node.get("func")).size();
+            int param_size = OptUtils.getNumberOfParams(node, table);
             code = code.append(", ").append(OptUtils.getTemp("__varargs_array_", false)).append(".array.i32");
             for (int i = 1; i < param_size; i++) {
                 if (node.getChildren().get(i).hasAttribute("name")) { // CHECKAR SE ISTO ESTA CERTO
@@ -158,7 +168,7 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
                     //var type = OptUtils.toOllirType(table.getReturnType(node.getChildren().get(i).get("name")));
                     code.append(", ").append(name).append(type);
                 } else if (node.getChildren().get(i).hasAttribute("value")) {
-                    var value = node.getChildren().get(i).get("value");
+                    var value = exprVisitor.getLiteralValue(node.getChildren().get(i));
                     var type = OptUtils.toOllirType(TypeUtils.getExprType(node.getJmmChild(i), table));
                     //var type = OptUtils.toOllirType(table.getReturnType(node.getChildren().get(i).get("name")));
                     code.append(", ").append(value).append(type);
@@ -199,7 +209,7 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
                     OllirExprResult funcCode = exprVisitor.visit(node.getChild(i));
 
                     code.append(", ").append(funcCode.getCode());
-                    code = new StringBuilder(funcCode.getComputation() + code);
+                    code.insert(0, funcCode.getComputation());
 
                 }
             }
@@ -216,7 +226,7 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
                     //var type = OptUtils.toOllirType(table.getReturnType(node.getChildren().get(i).get("name")));
                     code.append(", ").append(name).append(type);
                 } else if (node.getChildren().get(i).hasAttribute("value")) {
-                    var value = node.getChildren().get(i).get("value");
+                    var value = exprVisitor.getLiteralValue(node.getChildren().get(i));
                     var type = OptUtils.toOllirType(TypeUtils.getExprType(node.getJmmChild(i), table));
                     //var type = OptUtils.toOllirType(table.getReturnType(node.getChildren().get(i).get("name")));
                     code.append(", ").append(value).append(type);
@@ -257,7 +267,7 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
                     OllirExprResult funcCode = exprVisitor.visit(node.getChild(i));
 
                     code.append(", ").append(funcCode.getCode());
-                    code = new StringBuilder(funcCode.getComputation() + code);
+                    code.insert(0, funcCode.getComputation());
 
                 }
             }
@@ -350,7 +360,7 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
 
     private String visitReturn(JmmNode node, Void unused) {
 
-        String methodName = node.getAncestor(METHOD_DECL).map(method -> method.get("name")).orElseThrow();
+        String methodName = node.getAncestor(METHOD_DECL).map(method -> MethodTable.getSignature(method, table)).orElseThrow();
         Type retType = table.getReturnType(methodName);
 
         StringBuilder code = new StringBuilder();
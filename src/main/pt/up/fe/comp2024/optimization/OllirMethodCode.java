@@ -0,0 +1,199 @@
+package pt.up.fe.comp2024.optimization;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The OLLIR code of a single method, kept as one instruction (or label) per line.
+ */
+public class OllirMethodCode {
+
+    private static final Pattern HEADER = Pattern.compile("\\.method (public )?(static )?(\\w+)\\((.*)\\)(\\.[\\w.]+) \\{");
+    private static final Pattern JUMP = Pattern.compile("(if ?\\(.*\\) )?goto (\\w+);");
+    private static final Pattern ASSIGN = Pattern.compile("([\\w$]+)\\.[\\w.]+ :=\\.[\\w.]+ (.*);");
+    private static final Pattern VARIABLE = Pattern.compile("([\\w$]+)\\.\\w+");
+
+    private String header;
+    private final List<String> body;
+
+    private final boolean isStatic;
+    private final String name;
+    private final List<String> paramNames;
+    private final List<String> paramTypes;
+    private final String returnType;
+
+    public OllirMethodCode(String header, List<String> body) {
+        this.header = header;
+        this.body = new ArrayList<>(body);
+
+        Matcher matcher = HEADER.matcher(header);
+        if (!matcher.matches()) {
+            throw new RuntimeException("Could not parse OLLIR method header '" + header + "'");
+        }
+
+        this.isStatic = matcher.group(2) != null;
+        this.name = matcher.group(3);
+        this.returnType = matcher.group(5);
+        this.paramNames = new ArrayList<>();
+        this.paramTypes = new ArrayList<>();
+
+        if (!matcher.group(4).isBlank()) {
+            for (String param : matcher.group(4).split(",\\s*")) {
+                int dot = param.indexOf('.');
+                paramNames.add(param.substring(0, dot));
+                paramTypes.add(param.substring(dot));
+            }
+        }
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public void setHeader(String header) {
+        this.header = header;
+    }
+
+    /**
+     * @return the mutable list of instructions and labels of this method
+     */
+    public List<String> getBody() {
+        return body;
+    }
+
+    public void setBody(List<String> instructions) {
+        body.clear();
+        body.addAll(instructions);
+    }
+
+    public boolean isStatic() {
+        return isStatic;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getParamNames() {
+        return paramNames;
+    }
+
+    /**
+     * @return the OLLIR type suffixes of the parameters, e.g. ".i32"
+     */
+    public List<String> getParamTypes() {
+        return paramTypes;
+    }
+
+    /**
+     * @return the OLLIR type suffix of the return type, e.g. ".i32"
+     */
+    public String getReturnType() {
+        return returnType;
+    }
+
+    /**
+     * @return the indexes of the lines that can be executed right after the given line
+     */
+    public List<Integer> getSuccessors(int index) {
+        String line = body.get(index);
+        List<Integer> successors = new ArrayList<>();
+
+        if (line.startsWith("ret")) {
+            return successors;
+        }
+
+        Matcher jump = JUMP.matcher(line);
+        if (jump.matches()) {
+            int target = body.indexOf(jump.group(2) + ":");
+            if (target >= 0) successors.add(target);
+            if (jump.group(1) == null) return successors;
+        }
+
+        if (index + 1 < body.size()) {
+            successors.add(index + 1);
+        }
+
+        return successors;
+    }
+
+    /**
+     * @return true if the given line is between a label and a later jump back to it
+     */
+    public boolean isInLoop(int index) {
+        for (int i = index; i < body.size(); i++) {
+            Matcher jump = JUMP.matcher(body.get(i));
+            if (jump.matches() && body.subList(0, index).contains(jump.group(2) + ":")) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * @return true if some jump goes back to a label at or before it, i.e. the method may loop
+     */
+    public boolean hasBackwardJump() {
+        for (int i = 0; i < body.size(); i++) {
+            Matcher jump = JUMP.matcher(body.get(i));
+            if (jump.matches() && body.subList(0, i).contains(jump.group(2) + ":")) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Finds the local variables that can only hold objects created with "new" of the given class in this method, i.e.
+     * whose every assignment is either such a "new" or a copy of another of these variables. The runtime class of
+     * their objects is then known to be exactly the given class, and not one of its subclasses.
+     */
+    public Set<String> getExactInstances(String className) {
+        Set<String> assigned = new HashSet<>();
+        for (String line : body) {
+            Matcher assign = ASSIGN.matcher(line);
+            if (assign.matches()) assigned.add(assign.group(1));
+        }
+
+        Set<String> instances = new HashSet<>(assigned);
+        paramNames.forEach(instances::remove);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (String line : body) {
+                Matcher assign = ASSIGN.matcher(line);
+                if (!assign.matches() || !instances.contains(assign.group(1))) continue;
+
+                String value = assign.group(2);
+                Matcher copy = VARIABLE.matcher(value);
+                boolean isNew = value.equals("new(" + className + ")." + className);
+                boolean isInstanceCopy = copy.matches() && instances.contains(copy.group(1));
+                if (isNew || isInstanceCopy) continue;
+
+                instances.remove(assign.group(1));
+                changed = true;
+            }
+        }
+
+        return instances;
+    }
+
+    public static boolean isLabel(String line) {
+        return line.endsWith(":");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder code = new StringBuilder(header).append("\n");
+
+        for (String line : body) {
+            code.append(line).append("\n");
+        }
+
+        return code.append("}\n").toString();
+    }
+}
@@ -0,0 +1,19 @@
+package pt.up.fe.comp2024.optimization;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+
+/**
+ * Represents an optimization pass over the generated OLLIR code.
+ */
+public interface OllirPass {
+
+    /**
+     * Optimizes the given OLLIR code in place.
+     *
+     * @param code  the OLLIR code of the class being compiled
+     * @param table the symbol table
+     * @return true if the code was changed by the pass
+     */
+    boolean optimize(OllirCode code, SymbolTable table);
+
+}
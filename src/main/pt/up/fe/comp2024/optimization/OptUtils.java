@@ -1,15 +1,22 @@
 package pt.up.fe.comp2024.optimization;
 
 import org.specs.comp.ollir.Instruction;
-import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp2024.ast.NodeUtils;
+import pt.up.fe.comp2024.ast.TypeUtils;
+import pt.up.fe.comp2024.symboltable.MethodTable;
 import pt.up.fe.specs.util.exceptions.NotImplementedException;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static pt.up.fe.comp2024.ast.Kind.TYPE;
 
@@ -18,6 +25,17 @@ public class OptUtils {
 
     private static int labelCounter = 0;
 
+    // a variable in OLLIR code, e.g. "a.i32", "$1.a.i32" or the array of "a[i.i32].i32", captured without the parameter
+    // prefix and the type
+    private static final Pattern VARIABLE = Pattern.compile("(?<![\\w.$\"])(\\$\\d+\\.)?([A-Za-z_]\\w*)(?=[.\\[])");
+
+    // OLLIR type suffixes are requested for almost every node, so each one is built only once, and may be shared by
+    // compilations running in parallel
+    private static final Map<String, String> OLLIR_TYPES = new ConcurrentHashMap<>();
+    private static final Map<String, String> OLLIR_ARRAY_TYPES = new ConcurrentHashMap<>();
+
+    private static final Pattern FIELD_OPERAND = Pattern.compile("(getfield|putfield)\\([^,]+, $");
+
     public static String getLabel() {
         return String.valueOf(labelCounter++);
     }
@@ -43,22 +61,25 @@ public class OptUtils {
 
         TYPE.checkOrThrow(typeNode);
 
-        String typeName = typeNode.get("name");
-        if (typeNode.get("isArray").equals("true") || typeNode.get("isVarArgs").equals("true")) {
-            typeName += "[]";
-        }
-
-        return toOllirType(typeName);
+        return toOllirType(NodeUtils.getDeclaredType(typeNode));
     }
 
     public static String toOllirType(Type type) {
         if (type == null) return ".V";
-        if (type.isArray()) return ".array" + toOllirType(type.getName());
+        if (type.isArray()) {
+            String elementType = toOllirType(type.getName());
+            return OLLIR_ARRAY_TYPES.computeIfAbsent(type.getName(), name -> ".array" + elementType);
+        }
         return toOllirType(type.getName());
     }
 
     private static String toOllirType(String typeName) {
 
+        return OLLIR_TYPES.computeIfAbsent(typeName, OptUtils::buildOllirType);
+    }
+
+    private static String buildOllirType(String typeName) {
+
         return "." + switch (typeName) {
             case "int" -> "i32";
             case "boolean" -> "bool";
@@ -70,19 +91,73 @@ public class OptUtils {
         };
     }
 
+    /**
+     * @return if the call passes the variable arguments of the method one by one, and not already in an array
+     */
     public static boolean methodHasVarArgs(JmmNode node, SymbolTable table){
-        String methodName = node.get("func");
-        int numberOfParams = node.getChildren().size() - 1;
-        for(String m : table.getMethods()){
-            if(m.equals(methodName)){
-                if(table.getParameters(m).size() <= numberOfParams){
-                    List<Symbol> methodParams = table.getParameters(m);
-                    if (methodParams.size() == 0) return false;
-                    return methodParams.get(methodParams.size()-1).getType().isArray();
-                }
+        var method = TypeUtils.getCalledMethod(node, table).filter(MethodTable.Method::isVarArgs);
+        if (method.isEmpty()) return false;
+
+        int numberOfParams = method.get().getParams().size();
+        int numberOfArgs = node.getNumChildren() - 1;
+        if (numberOfArgs != numberOfParams) return true;
+
+        Type lastArgType = TypeUtils.getExprType(node.getChild(numberOfArgs), table);
+        return lastArgType == null || !lastArgType.isArray();
+    }
+
+    /**
+     * @return the number of parameters of the method of the class the call refers to, or else its number of arguments
+     */
+    public static int getNumberOfParams(JmmNode node, SymbolTable table){
+        return TypeUtils.getCalledMethod(node, table)
+                .map(method -> method.getParams().size())
+                .orElse(node.getNumChildren() - 1);
+    }
+
+    /**
+     * Collects the names of the local variables, parameters and temporaries referenced by an OLLIR instruction.
+     * Field names, "this", class names and literals are not included.
+     *
+     * @param instruction
+     * @return
+     */
+    public static List<String> getVariables(String instruction) {
+        List<String> variables = new ArrayList<>();
+        replaceVariables(instruction, name -> {
+            variables.add(name);
+            return null;
+        });
+        return variables;
+    }
+
+    /**
+     * Renames the variables referenced by an OLLIR instruction. The renamer receives the variable name and returns its
+     * new name, or null to keep the variable untouched. Renamed parameters lose their "$n." prefix.
+     *
+     * @param instruction
+     * @param renamer
+     * @return
+     */
+    public static String replaceVariables(String instruction, UnaryOperator<String> renamer) {
+        Matcher matcher = VARIABLE.matcher(instruction);
+        StringBuilder code = new StringBuilder();
+
+        while (matcher.find()) {
+            String name = matcher.group(2);
+            String newName = null;
+
+            boolean isKeyword = name.equals("this") || (name.equals("ret") && matcher.start() == 0 && !instruction.contains(":="));
+            boolean isField = FIELD_OPERAND.matcher(instruction.substring(0, matcher.start())).find();
+            if (!isKeyword && !isField) {
+                newName = renamer.apply(name);
             }
+
+            matcher.appendReplacement(code, Matcher.quoteReplacement(newName == null ? matcher.group() : newName));
         }
-        return false;
+        matcher.appendTail(code);
+
+        return code.toString();
     }
 
 }
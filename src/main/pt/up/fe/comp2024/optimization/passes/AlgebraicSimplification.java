@@ -0,0 +1,95 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp2024.optimization.OllirCode;
+import pt.up.fe.comp2024.optimization.OllirMethodCode;
+import pt.up.fe.comp2024.optimization.OllirPass;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Simplifies arithmetic instructions using algebraic identities, e.g. "x + 0", "x * 1", "x * 0" and "x - x", and
+ * folds operations whose operands are both literals.
+ * <p>
+ * Multiplications by powers of two are left to the backend, which selects shifts for them.
+ */
+public class AlgebraicSimplification implements OllirPass {
+
+    private static final Pattern BINARY = Pattern.compile("(\\S+) :=(\\.\\w+) (\\S+) ([-+*/<])(\\.\\w+) (\\S+);");
+    private static final Pattern LITERAL = Pattern.compile("(\\d{1,9})\\.(i32|bool)");
+
+    @Override
+    public boolean optimize(OllirCode code, SymbolTable table) {
+        boolean changed = false;
+
+        for (OllirMethodCode method : code.getMethods()) {
+            List<String> body = method.getBody();
+
+            for (int i = 0; i < body.size(); i++) {
+                Matcher binary = BINARY.matcher(body.get(i));
+                if (!binary.matches()) continue;
+
+                String result = simplify(binary.group(4), binary.group(3), binary.group(6), binary.group(2));
+                if (result != null) {
+                    body.set(i, binary.group(1) + " :=" + binary.group(2) + " " + result + ";");
+                    changed = true;
+                }
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * @return the operand that replaces the operation, or null if it can't be simplified
+     */
+    private String simplify(String op, String lhs, String rhs, String type) {
+        Integer left = getLiteral(lhs);
+        Integer right = getLiteral(rhs);
+
+        if (left != null && right != null) {
+            return fold(op, left, right, type);
+        }
+
+        return switch (op) {
+            case "+" -> isLiteral(right, 0) ? lhs : isLiteral(left, 0) ? rhs : null;
+            case "-" -> isLiteral(right, 0) ? lhs : lhs.equals(rhs) ? "0" + type : null;
+            case "*" -> {
+                if (isLiteral(right, 1)) yield lhs;
+                if (isLiteral(left, 1)) yield rhs;
+                if (isLiteral(left, 0) || isLiteral(right, 0)) yield "0" + type;
+                yield null;
+            }
+            case "/" -> isLiteral(right, 1) ? lhs : null;
+            case "<" -> lhs.equals(rhs) ? "0" + type : null;
+            default -> null;
+        };
+    }
+
+    private String fold(String op, int left, int right, String type) {
+        long value = switch (op) {
+            case "+" -> left + right;
+            case "-" -> left - right;
+            case "*" -> left * right;
+            case "/" -> right == 0 ? -1 : left / right;
+            case "<" -> left < right ? 1 : 0;
+            default -> -1;
+        };
+
+        // negative literals (and division by zero, which must still throw) are not folded
+        if (value < 0) return null;
+
+        return (int) value + type;
+    }
+
+    private Integer getLiteral(String operand) {
+        Matcher literal = LITERAL.matcher(operand);
+        return literal.matches() ? Integer.valueOf(literal.group(1)) : null;
+    }
+
+    private boolean isLiteral(Integer literal, int value) {
+        return literal != null && literal == value;
+    }
+}
@@ -0,0 +1,225 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp2024.optimization.MethodSummary;
+import pt.up.fe.comp2024.optimization.OllirCode;
+import pt.up.fe.comp2024.optimization.OllirMethodCode;
+import pt.up.fe.comp2024.optimization.OllirPass;
+import pt.up.fe.comp2024.optimization.OptUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reuses the value of an expression that was already computed on every path leading to an instruction.
+ * <p>
+ * The available expressions are found with a forward data-flow analysis over the control flow graph of the method,
+ * keeping for each expression the variable that holds its value. An expression stops being available when one of its
+ * operands or the variable holding it is redefined. Array reads are also invalidated by array stores, field reads by
+ * stores to the same field, and both by calls that may write them according to the summary of the called method.
+ * Calls to pure methods of the class are reused like any other expression.
+ */
+public class CommonSubexpressionElimination implements OllirPass {
+
+    private static final Pattern ASSIGN = Pattern.compile("(\\S+?)\\s*:=(\\.[\\w.]+) (.+);");
+    private static final Pattern BINARY = Pattern.compile("(\\S+) ([-+*/<>]|&&|\\|\\||[<>=!]=)(\\.\\w+) (\\S+)");
+    private static final Pattern UNARY = Pattern.compile("!\\.\\w+ \\S+");
+    private static final Pattern ARRAY_READ = Pattern.compile("\\S+\\[\\S+]\\.[\\w.]+");
+    private static final Pattern ARRAY_LENGTH = Pattern.compile("arraylength\\(\\S+\\)[\\w.]+");
+    private static final Pattern FIELD_READ = Pattern.compile("getfield\\(this, (\\w+)\\.\\S+\\)\\.[\\w.]+");
+    private static final Pattern CALL = Pattern.compile("invoke\\w+\\(.*\\)\\.(i32|bool)");
+    // a write through any reference, since after inlining it may be another name for this
+    private static final Pattern FIELD_WRITE = Pattern.compile("putfield\\([^,]+, (\\w+)\\..*");
+
+    private OllirCode code;
+    private SymbolTable table;
+    private Map<String, MethodSummary> summaries;
+    private Set<String> instances;
+
+    @Override
+    public boolean optimize(OllirCode code, SymbolTable table) {
+        this.code = code;
+        this.table = table;
+        this.summaries = MethodSummary.summarize(code, table);
+        boolean changed = false;
+
+        for (OllirMethodCode method : code.getMethods()) {
+            changed |= eliminate(method);
+        }
+
+        return changed;
+    }
+
+    private boolean eliminate(OllirMethodCode method) {
+        this.instances = method.getExactInstances(table.getClassName());
+        List<String> body = method.getBody();
+        List<Map<String, String>> available = computeAvailable(method);
+        boolean changed = false;
+
+        for (int i = 0; i < body.size(); i++) {
+            Matcher assign = ASSIGN.matcher(body.get(i));
+            Map<String, String> in = available.get(i);
+            if (in == null || !assign.matches()) continue;
+
+            String holder = in.get(getKey(assign.group(3)));
+            if (holder != null && !getName(holder).equals(getName(assign.group(1)))) {
+                body.set(i, assign.group(1) + " :=" + assign.group(2) + " " + holder + ";");
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * @return for each line, the expressions available before it mapped to the variable holding their value, or null
+     * if the line is unreachable
+     */
+    private List<Map<String, String>> computeAvailable(OllirMethodCode method) {
+        List<String> body = method.getBody();
+        List<Map<String, String>> available = new ArrayList<>();
+        for (int i = 0; i < body.size(); i++) {
+            available.add(null);
+        }
+
+        if (body.isEmpty()) return available;
+
+        available.set(0, new HashMap<>());
+        Deque<Integer> worklist = new ArrayDeque<>(List.of(0));
+
+        while (!worklist.isEmpty()) {
+            int index = worklist.poll();
+            Map<String, String> out = transfer(body.get(index), available.get(index));
+
+            for (int successor : method.getSuccessors(index)) {
+                Map<String, String> in = available.get(successor);
+                Map<String, String> merged = in == null ? new HashMap<>(out) : intersect(in, out);
+
+                if (!merged.equals(in)) {
+                    available.set(successor, merged);
+                    worklist.add(successor);
+                }
+            }
+        }
+
+        return available;
+    }
+
+    private Map<String, String> transfer(String inst, Map<String, String> in) {
+        Map<String, String> out = new HashMap<>(in);
+
+        if (inst.contains("invoke")) {
+            Optional<MethodSummary> callee = getCallee(inst);
+            if (callee.isEmpty() || callee.get().hasUnknownEffects()) {
+                invalidate(out, null, true);
+            } else {
+                invalidate(out, callee.get().getFieldsWritten(), callee.get().writesArrays());
+            }
+        }
+
+        Matcher putfield = FIELD_WRITE.matcher(inst);
+        if (putfield.matches()) {
+            invalidate(out, Set.of(putfield.group(1)), false);
+        }
+
+        Matcher assign = ASSIGN.matcher(inst);
+        if (!assign.matches()) return out;
+
+        String dest = assign.group(1);
+        if (dest.contains("[")) {
+            invalidate(out, Set.of(), true);
+            return out;
+        }
+
+        String defined = getName(dest);
+        out.entrySet().removeIf(entry -> getName(entry.getValue()).equals(defined)
+                || OptUtils.getVariables(entry.getKey()).contains(defined));
+
+        String key = getKey(assign.group(3));
+        if (key != null && !OptUtils.getVariables(key).contains(defined)) {
+            out.putIfAbsent(key, dest);
+        }
+
+        return out;
+    }
+
+    /**
+     * Removes the expressions whose value may change when the given fields (all of them if null) or arrays are written.
+     */
+    private void invalidate(Map<String, String> available, Set<String> fields, boolean arrays) {
+        available.keySet().removeIf(key -> {
+            Matcher fieldRead = FIELD_READ.matcher(key);
+            if (fieldRead.matches()) return fields == null || fields.contains(fieldRead.group(1));
+            if (isArrayRead(key)) return arrays;
+            if (!isCall(key)) return false;
+
+            MethodSummary callee = getCallee(key).orElseThrow();
+            boolean readsFields = fields == null
+                    ? !callee.getFieldsRead().isEmpty()
+                    : callee.getFieldsRead().stream().anyMatch(fields::contains);
+            return readsFields || (arrays && callee.readsArrays());
+        });
+    }
+
+    private Map<String, String> intersect(Map<String, String> first, Map<String, String> second) {
+        Map<String, String> result = new HashMap<>(first);
+        result.entrySet().removeIf(entry -> !entry.getValue().equals(second.get(entry.getKey())));
+        return result;
+    }
+
+    /**
+     * @return the expression in a form where equivalent expressions are equal, or null if it can't be reused
+     */
+    private String getKey(String rhs) {
+        if (rhs.contains("new(")) return null;
+        if (rhs.contains("invoke")) {
+            boolean isPureCall = isCall(rhs) && getCallee(rhs).map(MethodSummary::isPure).orElse(false);
+            return isPureCall ? OptUtils.replaceVariables(rhs, name -> name) : null;
+        }
+
+        // parameters are referenced both with and without their "$n." prefix
+        String expr = OptUtils.replaceVariables(rhs, name -> name);
+
+        Matcher binary = BINARY.matcher(expr);
+        if (binary.matches()) {
+            String left = binary.group(1);
+            String right = binary.group(4);
+            boolean commutative = List.of("+", "*", "&&", "||", "==", "!=").contains(binary.group(2));
+
+            if (commutative && left.compareTo(right) > 0) {
+                return right + " " + binary.group(2) + binary.group(3) + " " + left;
+            }
+            return expr;
+        }
+
+        boolean reusable = UNARY.matcher(expr).matches() || ARRAY_READ.matcher(expr).matches()
+                || ARRAY_LENGTH.matcher(expr).matches() || FIELD_READ.matcher(expr).matches();
+
+        return reusable ? expr : null;
+    }
+
+    private boolean isArrayRead(String key) {
+        return ARRAY_READ.matcher(key).matches();
+    }
+
+    private boolean isCall(String key) {
+        return CALL.matcher(key).matches();
+    }
+
+    private Optional<MethodSummary> getCallee(String inst) {
+        return MethodSummary.getCallee(inst, instances, summaries, code, table);
+    }
+
+    private String getName(String variable) {
+        int dot = variable.indexOf('.');
+        return dot < 0 ? variable : variable.substring(0, dot);
+    }
+}
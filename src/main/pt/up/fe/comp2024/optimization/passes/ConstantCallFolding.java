@@ -0,0 +1,48 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp2024.optimization.MethodSummary;
+import pt.up.fe.comp2024.optimization.OllirCode;
+import pt.up.fe.comp2024.optimization.OllirMethodCode;
+import pt.up.fe.comp2024.optimization.OllirPass;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replaces calls to methods of the class that always return the same literal by that literal.
+ * <p>
+ * Only calls to methods without side effects that can't throw are folded, since the call itself is removed.
+ */
+public class ConstantCallFolding implements OllirPass {
+
+    private static final Pattern CALL = Pattern.compile("(\\S+) :=(\\.[\\w.]+) (invoke\\w+\\(.*\\)\\.[\\w.]+);");
+
+    @Override
+    public boolean optimize(OllirCode code, SymbolTable table) {
+        Map<String, MethodSummary> summaries = MethodSummary.summarize(code, table);
+        boolean changed = false;
+
+        for (OllirMethodCode method : code.getMethods()) {
+            List<String> body = method.getBody();
+            Set<String> instances = method.getExactInstances(table.getClassName());
+
+            for (int i = 0; i < body.size(); i++) {
+                Matcher call = CALL.matcher(body.get(i));
+                if (!call.matches()) continue;
+
+                Optional<MethodSummary> callee = MethodSummary.getCallee(call.group(3), instances, summaries, code, table);
+                if (callee.isEmpty() || !callee.get().isRemovable() || callee.get().getConstantReturn() == null) continue;
+
+                body.set(i, call.group(1) + " :=" + call.group(2) + " " + callee.get().getConstantReturn() + ";");
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+}
@@ -0,0 +1,243 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp2024.optimization.MethodSummary;
+import pt.up.fe.comp2024.optimization.OllirCode;
+import pt.up.fe.comp2024.optimization.OllirMethodCode;
+import pt.up.fe.comp2024.optimization.OllirPass;
+import pt.up.fe.comp2024.optimization.OptUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Removes the moves between temporaries that the OLLIR generator leaves around every expression.
+ * <p>
+ * A temporary that is only used to be copied into a variable right after being computed is coalesced with it, i.e.
+ * "t = a + b; x = t" becomes "x = a + b". The remaining copies of variables and literals are propagated into the
+ * instructions they reach, and the copies left unused are removed, along with the unused results of calls to methods
+ * of the class without side effects.
+ */
+public class CopyPropagation implements OllirPass {
+
+    private static final Pattern ASSIGN = Pattern.compile("(\\S+?)\\s*:=(\\.[\\w.]+) (.+);");
+    private static final Pattern COPY = Pattern.compile("((?:\\$\\d+\\.)?\\w+)\\.[\\w.]+");
+    private static final Pattern PURE = Pattern.compile("\\S+( [-+*<]\\.\\w+ | &&\\.\\w+ )\\S+|!\\.\\w+ \\S+");
+
+    @Override
+    public boolean optimize(OllirCode code, SymbolTable table) {
+        Set<String> fields = table.getFields().stream()
+                .map(Symbol::getName)
+                .collect(Collectors.toSet());
+        Map<String, MethodSummary> summaries = MethodSummary.summarize(code, table);
+        boolean changed = false;
+
+        for (OllirMethodCode method : code.getMethods()) {
+            Set<String> instances = method.getExactInstances(table.getClassName());
+            Predicate<String> isRemovableCall = inst -> MethodSummary.getCallee(inst, instances, summaries, code, table)
+                    .map(MethodSummary::isRemovable)
+                    .orElse(false);
+
+            while (coalesce(method, fields) | propagate(method) | removeDeadCopies(method, fields, isRemovableCall)) {
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Folds "t = expr; x = t" into "x = expr" when that copy is the only use of "t".
+     */
+    private boolean coalesce(OllirMethodCode method, Set<String> fields) {
+        List<String> body = method.getBody();
+        Map<String, Integer> uses = countUses(body);
+        Map<String, Integer> defs = countDefs(body);
+        boolean changed = false;
+
+        for (int i = 0; i + 1 < body.size(); i++) {
+            Matcher temp = ASSIGN.matcher(body.get(i));
+            Matcher copy = ASSIGN.matcher(body.get(i + 1));
+            if (!temp.matches() || !copy.matches() || isArrayStore(temp.group(1)) || isArrayStore(copy.group(1))) {
+                continue;
+            }
+
+            String name = getName(temp.group(1));
+            Matcher source = COPY.matcher(copy.group(3));
+            if (!source.matches() || !source.group(1).equals(name) || fields.contains(name)
+                    || method.getParamNames().contains(name)) {
+                continue;
+            }
+
+            if (uses.getOrDefault(name, 0) == 1 && defs.getOrDefault(name, 0) == 1) {
+                body.set(i, copy.group(1) + " :=" + copy.group(2) + " " + temp.group(3) + ";");
+                body.remove(i + 1);
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Replaces the uses of a variable by the variable or literal it was copied from, wherever that copy reaches on
+     * every path.
+     */
+    private boolean propagate(OllirMethodCode method) {
+        List<String> body = method.getBody();
+        List<Map<String, String>> copies = computeCopies(method);
+        boolean changed = false;
+
+        for (int i = 0; i < body.size(); i++) {
+            Map<String, String> in = copies.get(i);
+            String inst = body.get(i);
+            if (in == null || in.isEmpty() || OllirMethodCode.isLabel(inst)) continue;
+
+            String newInst;
+            Matcher assign = ASSIGN.matcher(inst);
+            if (assign.matches() && !isArrayStore(assign.group(1))) {
+                String rhs = OptUtils.replaceVariables(assign.group(3), in::get);
+                newInst = assign.group(1) + " :=" + assign.group(2) + " " + rhs + ";";
+            } else {
+                newInst = OptUtils.replaceVariables(inst, in::get);
+            }
+
+            if (!newInst.equals(inst)) {
+                body.set(i, newInst);
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * @return for each line, the copies reaching it mapped from the copied variable to its source, or null if the line
+     * is unreachable
+     */
+    private List<Map<String, String>> computeCopies(OllirMethodCode method) {
+        List<String> body = method.getBody();
+        List<Map<String, String>> copies = new ArrayList<>();
+        for (int i = 0; i < body.size(); i++) {
+            copies.add(null);
+        }
+
+        if (body.isEmpty()) return copies;
+
+        copies.set(0, new HashMap<>());
+        Deque<Integer> worklist = new ArrayDeque<>(List.of(0));
+
+        while (!worklist.isEmpty()) {
+            int index = worklist.poll();
+            Map<String, String> out = transfer(body.get(index), copies.get(index));
+
+            for (int successor : method.getSuccessors(index)) {
+                Map<String, String> in = copies.get(successor);
+                Map<String, String> merged = new HashMap<>(out);
+                if (in != null) {
+                    merged.entrySet().removeIf(entry -> !entry.getValue().equals(in.get(entry.getKey())));
+                }
+
+                if (!merged.equals(in)) {
+                    copies.set(successor, merged);
+                    worklist.add(successor);
+                }
+            }
+        }
+
+        return copies;
+    }
+
+    private Map<String, String> transfer(String inst, Map<String, String> in) {
+        Map<String, String> out = new HashMap<>(in);
+
+        Matcher assign = ASSIGN.matcher(inst);
+        if (!assign.matches() || isArrayStore(assign.group(1))) return out;
+
+        String defined = getName(assign.group(1));
+        out.entrySet().removeIf(entry -> entry.getKey().equals(defined) || getName(entry.getValue()).equals(defined));
+
+        Matcher source = COPY.matcher(assign.group(3));
+        if (source.matches() && !source.group(1).equals("this") && !getName(source.group(1)).equals(defined)) {
+            out.put(defined, source.group(1));
+        }
+
+        return out;
+    }
+
+    /**
+     * Removes the assignments without side effects to variables that are never read, and the calls without side effects.
+     */
+    private boolean removeDeadCopies(OllirMethodCode method, Set<String> fields, Predicate<String> isRemovableCall) {
+        List<String> body = method.getBody();
+        Map<String, Integer> uses = countUses(body);
+
+        return body.removeIf(inst -> {
+            Matcher assign = ASSIGN.matcher(inst);
+            if (!assign.matches()) return inst.startsWith("invoke") && isRemovableCall.test(inst);
+            if (isArrayStore(assign.group(1))) return false;
+
+            String name = getName(assign.group(1));
+            String rhs = assign.group(3);
+            boolean isPure = COPY.matcher(rhs).matches() || PURE.matcher(rhs).matches() || isRemovableCall.test(rhs);
+
+            return isPure && !fields.contains(name) && uses.getOrDefault(name, 0) == 0;
+        });
+    }
+
+    /**
+     * Counts the reads of each variable, including the arrays of indexed reads and stores, e.g. "a" in "a[2.i32].i32".
+     */
+    private Map<String, Integer> countUses(List<String> body) {
+        Map<String, Integer> uses = new HashMap<>();
+
+        for (String inst : body) {
+            if (OllirMethodCode.isLabel(inst)) continue;
+
+            Matcher assign = ASSIGN.matcher(inst);
+            String read = assign.matches() && !isArrayStore(assign.group(1)) ? assign.group(3) : inst;
+
+            for (String variable : OptUtils.getVariables(read)) {
+                uses.merge(variable, 1, Integer::sum);
+            }
+        }
+
+        return uses;
+    }
+
+    private Map<String, Integer> countDefs(List<String> body) {
+        Map<String, Integer> defs = new HashMap<>();
+
+        for (String inst : body) {
+            Matcher assign = ASSIGN.matcher(inst);
+            if (assign.matches() && !isArrayStore(assign.group(1))) {
+                defs.merge(getName(assign.group(1)), 1, Integer::sum);
+            }
+        }
+
+        return defs;
+    }
+
+    private boolean isArrayStore(String dest) {
+        return dest.contains("[");
+    }
+
+    /**
+     * @return the name of a variable without its parameter prefix and type, e.g. "a" for "$1.a.i32"
+     */
+    private String getName(String variable) {
+        String name = variable.replaceFirst("^\\$\\d+\\.", "");
+        int dot = name.indexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+}
@@ -0,0 +1,51 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp2024.optimization.OllirCode;
+import pt.up.fe.comp2024.optimization.OllirMethodCode;
+import pt.up.fe.comp2024.optimization.OllirPass;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replaces virtual calls to methods of the class being compiled by direct calls with invokespecial.
+ * <p>
+ * Java-- has no private or final methods, and another class may extend the compiled one and override them, so a call
+ * is only replaced when its receiver is known to be exactly an object of the class, i.e. it was created with "new" in
+ * the same method. Such a call can only reach the method the class defines, and the JVM then doesn't need to look the
+ * method up on the receiver. Calls on "this", on parameters and on fields, and calls to methods the class inherits,
+ * are left virtual.
+ */
+public class Devirtualization implements OllirPass {
+
+    private static final Pattern CALL = Pattern.compile("invokevirtual\\(([\\w$]+)\\.(\\w+), \"(\\w+)\"");
+
+    @Override
+    public boolean optimize(OllirCode code, SymbolTable table) {
+        boolean changed = false;
+
+        for (OllirMethodCode method : code.getMethods()) {
+            List<String> body = method.getBody();
+            Set<String> instances = method.getExactInstances(table.getClassName());
+
+            for (int i = 0; i < body.size(); i++) {
+                String inst = body.get(i);
+                Matcher call = CALL.matcher(inst);
+                if (!call.find()) continue;
+
+                boolean isClassInstance = instances.contains(call.group(1)) && table.getClassName().equals(call.group(2));
+                Optional<OllirMethodCode> callee = code.getMethod(call.group(3));
+                if (!isClassInstance || callee.isEmpty() || callee.get().isStatic()) continue;
+
+                body.set(i, inst.substring(0, call.start()) + "invokespecial" + inst.substring(call.start() + "invokevirtual".length()));
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+}
@@ -0,0 +1,188 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp2024.optimization.OllirCode;
+import pt.up.fe.comp2024.optimization.OllirMethodCode;
+import pt.up.fe.comp2024.optimization.OllirPass;
+import pt.up.fe.comp2024.optimization.OptUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replaces multiplications of an induction variable by a constant inside loops with additions.
+ * <p>
+ * For "t = i * c" in a loop where "i" is only updated by "i = i + k", a new variable "s" is set to "i * c" before the
+ * loop and incremented by "k * c" right after each update of "i", so "t = i * c" becomes "t = s".
+ */
+public class LoopStrengthReduction implements OllirPass {
+
+    private static final Pattern MUL = Pattern.compile("(\\S+) :=\\.i32 (\\S+) \\*\\.i32 (\\S+);");
+    private static final Pattern ADD = Pattern.compile("(\\w+)\\.i32 :=\\.i32 (\\S+) \\+\\.i32 (\\S+);");
+    private static final Pattern COPY = Pattern.compile("(\\w+)\\.i32 :=\\.i32 (?:\\$\\d+\\.)?(\\w+)\\.i32;");
+    private static final Pattern JUMP = Pattern.compile("(?:if ?\\(.*\\) )?goto (\\w+);");
+    private static final Pattern LITERAL = Pattern.compile("(\\d{1,9})\\.i32");
+    private static final Pattern VARIABLE = Pattern.compile("(?:\\$\\d+\\.)?(\\w+)\\.i32");
+
+    @Override
+    public boolean optimize(OllirCode code, SymbolTable table) {
+        boolean changed = false;
+
+        for (OllirMethodCode method : code.getMethods()) {
+            // each reduction changes the instruction indexes, so loops are searched again after it
+            while (reduceOnce(method)) {
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    private boolean reduceOnce(OllirMethodCode method) {
+        List<String> body = method.getBody();
+
+        for (int header = 0; header < body.size(); header++) {
+            if (!OllirMethodCode.isLabel(body.get(header))) continue;
+
+            // the loop goes up to the last jump back to its header
+            int end = -1;
+            for (int i = header; i < body.size(); i++) {
+                Matcher jump = JUMP.matcher(body.get(i));
+                if (jump.matches() && body.get(header).equals(jump.group(1) + ":")) end = i;
+            }
+
+            for (int i = header; i <= end; i++) {
+                if (reduce(method, header, end, i)) return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Tries to reduce the multiplication at the given index, inside the loop [header, end].
+     */
+    private boolean reduce(OllirMethodCode method, int header, int end, int index) {
+        List<String> body = method.getBody();
+
+        Matcher mul = MUL.matcher(body.get(index));
+        if (!mul.matches()) return false;
+
+        boolean leftIsConstant = LITERAL.matcher(mul.group(2)).matches();
+        String operand = leftIsConstant ? mul.group(3) : mul.group(2);
+        Matcher constant = LITERAL.matcher(leftIsConstant ? mul.group(2) : mul.group(3));
+        Matcher variable = VARIABLE.matcher(operand);
+        if (!constant.matches() || !variable.matches()) return false;
+
+        String inductionVar = variable.group(1);
+        int update = findUpdate(body, header, end, inductionVar);
+        if (update < 0) return false;
+
+        long step = (long) getIncrement(body, header, end, update, inductionVar) * Integer.parseInt(constant.group(1));
+        if (step <= 0 || step > Integer.MAX_VALUE) return false;
+
+        String reduced = OptUtils.getTemp(false) + ".i32";
+        String init = reduced + " :=.i32 " + operand + " *.i32 " + constant.group() + ";";
+
+        body.set(index, mul.group(1) + " :=.i32 " + reduced + ";");
+        body.add(update + 1, reduced + " :=.i32 " + reduced + " +.i32 " + step + ".i32;");
+        insertBeforeLoop(body, header, end + 1, init);
+
+        return true;
+    }
+
+    /**
+     * @return the index of the only definition of the variable inside the loop if it is an increment, or -1
+     */
+    private int findUpdate(List<String> body, int header, int end, String variable) {
+        int update = -1;
+
+        for (int i = header; i <= end; i++) {
+            if (!variable.equals(getDefinedVariable(body.get(i)))) continue;
+            if (update >= 0) return -1;
+            update = i;
+        }
+
+        if (update < 0 || getIncrement(body, header, end, update, variable) <= 0) return -1;
+
+        return update;
+    }
+
+    /**
+     * Gets the constant added to the variable by "i = i + k", or by "u = i + k; i = u" when "u" is only defined once
+     * in the loop.
+     *
+     * @return the increment, or -1 if the instruction isn't an increment
+     */
+    private int getIncrement(List<String> body, int header, int end, int update, String variable) {
+        String inst = body.get(update);
+
+        Matcher copy = COPY.matcher(inst);
+        if (copy.matches()) {
+            String source = copy.group(2);
+
+            int sourceDef = -1;
+            for (int i = header; i < update; i++) {
+                if (source.equals(getDefinedVariable(body.get(i)))) sourceDef = i;
+            }
+            for (int i = update; i <= end; i++) {
+                if (source.equals(getDefinedVariable(body.get(i)))) return -1;
+            }
+
+            return sourceDef < 0 ? -1 : getIncrement(body, header, end, sourceDef, variable);
+        }
+
+        Matcher add = ADD.matcher(inst);
+        if (!add.matches()) return -1;
+
+        Matcher left = VARIABLE.matcher(add.group(2));
+        Matcher right = LITERAL.matcher(add.group(3));
+        if (!right.matches()) {
+            left = VARIABLE.matcher(add.group(3));
+            right = LITERAL.matcher(add.group(2));
+        }
+
+        if (left.matches() && right.matches() && left.group(1).equals(variable)) {
+            return Integer.parseInt(right.group(1));
+        }
+
+        return -1;
+    }
+
+    /**
+     * Inserts an instruction on every entry into the loop: before the jumps from outside the loop into its header, and
+     * before the header itself when it can be reached by falling through.
+     */
+    private void insertBeforeLoop(List<String> body, int header, int end, String inst) {
+        String label = body.get(header);
+        List<Integer> entries = new ArrayList<>();
+
+        for (int i = 0; i < body.size(); i++) {
+            if (i >= header && i <= end) continue;
+
+            Matcher jump = JUMP.matcher(body.get(i));
+            if (jump.matches() && label.equals(jump.group(1) + ":")) entries.add(i);
+        }
+
+        String previous = header == 0 ? "" : body.get(header - 1);
+        if (header == 0 || !(previous.startsWith("goto ") || previous.startsWith("ret"))) {
+            entries.add(header);
+        }
+
+        entries.sort(null);
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            body.add(entries.get(i), inst);
+        }
+    }
+
+    private String getDefinedVariable(String inst) {
+        int assign = inst.indexOf(" :=");
+        if (assign < 0) return null;
+
+        String dest = inst.substring(0, assign);
+        int dot = dest.indexOf('.');
+        return dot < 0 ? dest : dest.substring(0, dot);
+    }
+}
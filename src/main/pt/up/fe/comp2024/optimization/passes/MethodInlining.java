@@ -0,0 +1,136 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp2024.optimization.OllirCode;
+import pt.up.fe.comp2024.optimization.OllirMethodCode;
+import pt.up.fe.comp2024.optimization.OllirPass;
+import pt.up.fe.comp2024.optimization.OptUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replaces calls to small methods of the class being compiled by a copy of their body.
+ * <p>
+ * Only straight-line methods (no labels or jumps) with at most {@link #MAX_INSTRUCTIONS} instructions are inlined.
+ * The locals and temporaries of the callee are renamed into the caller, and each parameter becomes a local that is
+ * assigned the corresponding argument. References to "this" in the callee are replaced by the receiver of the call.
+ */
+public class MethodInlining implements OllirPass {
+
+    private static final int MAX_INSTRUCTIONS = 8;
+
+    // how many times inlined code is scanned again for calls, bounding (mutually) recursive expansion
+    private static final int MAX_DEPTH = 3;
+
+    private static final Pattern CALL = Pattern.compile("(?:(\\S+) :=(\\.[\\w.]+) )?invokevirtual\\((.*)\\)(\\.[\\w.]+);");
+    private static final Pattern RETURN = Pattern.compile("ret(\\.[\\w.]+) ?(.*);");
+    private static final Pattern THIS = Pattern.compile("(?<![\\w.$\"])this(\\.\\w+)?(?!\\w)");
+
+    private int inlineCounter = 0;
+
+    @Override
+    public boolean optimize(OllirCode code, SymbolTable table) {
+        boolean changed = false;
+
+        for (int depth = 0; depth < MAX_DEPTH; depth++) {
+            boolean changedRound = false;
+
+            for (OllirMethodCode method : code.getMethods()) {
+                changedRound |= inlineCalls(method, code, table);
+            }
+
+            if (!changedRound) break;
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    private boolean inlineCalls(OllirMethodCode caller, OllirCode code, SymbolTable table) {
+        Set<String> instances = caller.getExactInstances(table.getClassName());
+        List<String> body = new ArrayList<>();
+        boolean changed = false;
+
+        for (String inst : caller.getBody()) {
+            Matcher call = CALL.matcher(inst);
+            if (!call.matches()) {
+                body.add(inst);
+                continue;
+            }
+
+            List<String> operands = List.of(call.group(3).split(", "));
+            String receiver = operands.get(0);
+            String methodName = operands.get(1).replace("\"", "");
+            List<String> args = operands.subList(2, operands.size());
+
+            Optional<OllirMethodCode> callee = code.getMethod(methodName)
+                    .filter(method -> method != caller)
+                    .filter(method -> method.getParamNames().size() == args.size())
+                    .filter(method -> canInline(method, receiver, instances, table));
+
+            if (callee.isEmpty()) {
+                body.add(inst);
+                continue;
+            }
+
+            body.addAll(inline(callee.get(), receiver, args, call.group(1), call.group(2)));
+            changed = true;
+        }
+
+        caller.setBody(body);
+        return changed;
+    }
+
+    private boolean canInline(OllirMethodCode callee, String receiver, Set<String> instances, SymbolTable table) {
+        // a subclass may override the method, unless the receiver was created with "new" of the class
+        if (callee.isStatic() || !receiver.endsWith("." + table.getClassName())) return false;
+        if (!instances.contains(receiver.substring(0, receiver.indexOf('.')))) return false;
+
+        List<String> body = callee.getBody();
+        if (body.isEmpty() || body.size() - 1 > MAX_INSTRUCTIONS) return false;
+        if (!RETURN.matcher(body.get(body.size() - 1)).matches()) return false;
+
+        for (String inst : body.subList(0, body.size() - 1)) {
+            if (OllirMethodCode.isLabel(inst) || inst.startsWith("goto ") || inst.startsWith("if ") || inst.startsWith("if(")) {
+                return false;
+            }
+            if (inst.startsWith("ret")) return false;
+            if (inst.contains("\"" + callee.getName() + "\"")) return false;
+        }
+
+        return true;
+    }
+
+    private List<String> inline(OllirMethodCode callee, String receiver, List<String> args, String dest, String destType) {
+        String prefix = "inl" + inlineCounter++ + "_";
+        List<String> code = new ArrayList<>();
+
+        for (int i = 0; i < args.size(); i++) {
+            String type = callee.getParamTypes().get(i);
+            code.add(prefix + callee.getParamNames().get(i) + type + " :=" + type + " " + args.get(i) + ";");
+        }
+
+        List<String> body = callee.getBody();
+        for (String inst : body.subList(0, body.size() - 1)) {
+            code.add(bindThis(OptUtils.replaceVariables(inst, name -> prefix + name), receiver));
+        }
+
+        Matcher ret = RETURN.matcher(body.get(body.size() - 1));
+        if (dest != null && ret.matches()) {
+            String value = bindThis(OptUtils.replaceVariables(ret.group(2), name -> prefix + name), receiver);
+            code.add(dest + " :=" + destType + " " + value + ";");
+        }
+
+        return code;
+    }
+
+    private String bindThis(String inst, String receiver) {
+        if (receiver.startsWith("this.")) return inst;
+        return THIS.matcher(inst).replaceAll(Matcher.quoteReplacement(receiver));
+    }
+}
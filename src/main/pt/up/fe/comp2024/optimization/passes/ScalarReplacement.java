@@ -0,0 +1,167 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp2024.optimization.OllirCode;
+import pt.up.fe.comp2024.optimization.OllirMethodCode;
+import pt.up.fe.comp2024.optimization.OllirPass;
+import pt.up.fe.comp2024.optimization.OptUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replaces objects of the class being compiled that don't escape the method creating them by one local per field.
+ * <p>
+ * An object doesn't escape when it is only copied between locals and its fields are read or written, which is often
+ * the case after inlining the methods called on it. Its allocation and constructor call are then removed, and its
+ * fields become locals initialized to zero. Only int and boolean fields are replaced, since OLLIR has no null literal
+ * for the default value of the others.
+ */
+public class ScalarReplacement implements OllirPass {
+
+    private static final Pattern ALLOCATION = Pattern.compile("(\\w+)\\.(\\w+) :=\\.\\2 new\\(\\2\\)\\.\\2;");
+    private static final Pattern FIELD_TYPE = Pattern.compile("\\.(i32|bool)");
+
+    private int replacementCounter = 0;
+
+    @Override
+    public boolean optimize(OllirCode code, SymbolTable table) {
+        // the constructor of a subclass may have side effects that can't be removed
+        String superClass = table.getSuper();
+        if (superClass != null && !superClass.isEmpty() && !superClass.equals("Object")) return false;
+
+        boolean changed = false;
+
+        for (OllirMethodCode method : code.getMethods()) {
+            // a replacement rewrites the whole body, so the method is searched again after it
+            while (replaceOnce(method, table)) {
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    private boolean replaceOnce(OllirMethodCode method, SymbolTable table) {
+        List<String> body = method.getBody();
+
+        for (int i = 0; i < body.size(); i++) {
+            Matcher allocation = ALLOCATION.matcher(body.get(i));
+            if (allocation.matches() && allocation.group(2).equals(table.getClassName())
+                    && replace(method, i, allocation.group(1), allocation.group(2))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Tries to replace the object allocated at the given index.
+     */
+    private boolean replace(OllirMethodCode method, int index, String object, String className) {
+        List<String> body = method.getBody();
+
+        // an allocation in a loop creates several objects that could be alive at the same time
+        if (method.isInLoop(index)) return false;
+
+        Set<String> aliases = findAliases(body, object, className);
+        if (aliases == null) return false;
+
+        String type = "\\." + className;
+        String alias = "(?:" + String.join("|", aliases) + ")" + type;
+        Pattern init = Pattern.compile("invokespecial\\(" + alias + ", \"<init>\"\\)\\.V;");
+        Pattern copy = Pattern.compile(alias + " :=" + type + " " + alias + ";");
+        Pattern getfield = Pattern.compile("getfield\\(" + alias + ", (\\w+)(\\.\\w+)\\)\\.[\\w.]+");
+        Pattern putfield = Pattern.compile("putfield\\(" + alias + ", (\\w+)(\\.\\w+), (.+)\\)\\.V;");
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < body.size(); i++) {
+            String inst = body.get(i);
+            if (i == index || init.matcher(inst).matches() || copy.matcher(inst).matches()) continue;
+
+            Matcher put = putfield.matcher(inst);
+            String rest = inst;
+            if (put.matches()) {
+                fields.put(put.group(1), put.group(2));
+                rest = put.group(3);
+            }
+
+            Matcher get = getfield.matcher(rest);
+            while (get.find()) {
+                fields.put(get.group(1), get.group(2));
+            }
+            rest = get.replaceAll("");
+
+            // any other reference lets the object escape
+            if (OptUtils.getVariables(rest).stream().anyMatch(aliases::contains)) return false;
+        }
+
+        if (!fields.values().stream().allMatch(field -> FIELD_TYPE.matcher(field).matches())) return false;
+
+        String prefix = "sr" + replacementCounter++ + "_";
+        List<String> newBody = new ArrayList<>();
+
+        for (int i = 0; i < body.size(); i++) {
+            String inst = body.get(i);
+
+            if (i == index) {
+                fields.forEach((name, fieldType) -> newBody.add(prefix + name + fieldType + " :=" + fieldType + " 0" + fieldType + ";"));
+                continue;
+            }
+            if (init.matcher(inst).matches() || copy.matcher(inst).matches()) continue;
+
+            Matcher put = putfield.matcher(inst);
+            if (put.matches()) {
+                String value = getfield.matcher(put.group(3)).replaceAll(prefix + "$1$2");
+                newBody.add(prefix + put.group(1) + put.group(2) + " :=" + put.group(2) + " " + value + ";");
+                continue;
+            }
+
+            newBody.add(getfield.matcher(inst).replaceAll(prefix + "$1$2"));
+        }
+
+        method.setBody(newBody);
+        return true;
+    }
+
+    /**
+     * @return the allocated object and the locals it is copied to, or null if any of them is also assigned something
+     * else
+     */
+    private Set<String> findAliases(List<String> body, String object, String className) {
+        Pattern copy = Pattern.compile("(\\w+)\\." + className + " :=\\." + className + " (\\w+)\\." + className + ";");
+        Set<String> aliases = new HashSet<>(Set.of(object));
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (String inst : body) {
+                Matcher matcher = copy.matcher(inst);
+                if (matcher.matches() && aliases.contains(matcher.group(2))) {
+                    changed |= aliases.add(matcher.group(1));
+                }
+            }
+        }
+
+        // each alias must be defined exactly once, by the allocation or by a copy of another alias
+        Map<String, Integer> defs = new LinkedHashMap<>();
+        for (String inst : body) {
+            int assign = inst.indexOf(" :=");
+            if (assign < 0) continue;
+
+            String dest = inst.substring(0, assign);
+            String name = dest.contains(".") ? dest.substring(0, dest.indexOf('.')) : dest;
+            if (aliases.contains(name)) defs.merge(name, 1, Integer::sum);
+        }
+
+        return defs.values().stream().allMatch(count -> count == 1) ? aliases : null;
+    }
+}
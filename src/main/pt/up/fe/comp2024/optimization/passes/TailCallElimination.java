@@ -0,0 +1,128 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp2024.optimization.OllirCode;
+import pt.up.fe.comp2024.optimization.OllirMethodCode;
+import pt.up.fe.comp2024.optimization.OllirPass;
+import pt.up.fe.comp2024.optimization.OptUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns self-recursive calls in tail position into a loop.
+ * <p>
+ * A call "this.f(...)" inside "f" is in tail position when its result only flows, through copies, labels and jumps,
+ * into the return of the method. Such a call is replaced by the reassignment of the parameters and a jump to a label
+ * placed at the method entry, so the recursion no longer uses stack frames. A subclass may override "f", but Java--
+ * has no super calls, so this body of "f" only runs on objects whose class doesn't, and the call reaches it too.
+ * <p>
+ * An OLLIR call only names the method, not its parameter types, so the calls in an overloaded method are left alone:
+ * "this.f(...)" may call another overload with as many parameters.
+ */
+public class TailCallElimination implements OllirPass {
+
+    private static final Pattern CALL = Pattern.compile("(\\w+)\\.[\\w.]+ :=\\.[\\w.]+ invokevirtual\\(this\\.(\\w+), \"(\\w+)\"(.*)\\)\\.[\\w.]+;");
+    private static final Pattern COPY = Pattern.compile("(\\w+)(\\.[\\w.]+) :=\\2 (?:\\$\\d+\\.)?(\\w+)\\2;");
+    private static final Pattern RETURN = Pattern.compile("ret(\\.[\\w.]+) (?:\\$\\d+\\.)?(\\w+)\\1;");
+    private static final Pattern GOTO = Pattern.compile("goto (\\w+);");
+
+    @Override
+    public boolean optimize(OllirCode code, SymbolTable table) {
+        boolean changed = false;
+
+        for (OllirMethodCode method : code.getMethods()) {
+            // empty when the name is overloaded
+            if (code.getMethod(method.getName()).isEmpty()) continue;
+            changed |= eliminateTailCalls(method, table);
+        }
+
+        return changed;
+    }
+
+    private boolean eliminateTailCalls(OllirMethodCode method, SymbolTable table) {
+        List<String> body = method.getBody();
+        List<String> newBody = new ArrayList<>();
+        String entryLabel = "tailcall_entry_" + OptUtils.getLabel();
+        boolean changed = false;
+
+        for (int i = 0; i < body.size(); i++) {
+            String inst = body.get(i);
+            Matcher call = CALL.matcher(inst);
+
+            if (!call.matches() || !call.group(2).equals(table.getClassName()) || !call.group(3).equals(method.getName())) {
+                newBody.add(inst);
+                continue;
+            }
+
+            List<String> args = call.group(4).isEmpty() ? List.of() : List.of(call.group(4).substring(2).split(", "));
+            if (args.size() != method.getParamNames().size() || !isTailPosition(body, i + 1, call.group(1))) {
+                newBody.add(inst);
+                continue;
+            }
+
+            // arguments may read the parameters being reassigned, so they are all evaluated first
+            List<String> temps = new ArrayList<>();
+            for (int arg = 0; arg < args.size(); arg++) {
+                String type = method.getParamTypes().get(arg);
+                String temp = OptUtils.getTemp(false) + type;
+                temps.add(temp);
+                newBody.add(temp + " :=" + type + " " + args.get(arg) + ";");
+            }
+            for (int arg = 0; arg < args.size(); arg++) {
+                String type = method.getParamTypes().get(arg);
+                newBody.add(method.getParamNames().get(arg) + type + " :=" + type + " " + temps.get(arg) + ";");
+            }
+            newBody.add("goto " + entryLabel + ";");
+            changed = true;
+
+            // the copies of the call result up to the next label are now unreachable
+            while (i + 1 < body.size() && !OllirMethodCode.isLabel(body.get(i + 1))) {
+                i++;
+            }
+        }
+
+        if (changed) {
+            newBody.add(0, entryLabel + ":");
+            method.setBody(newBody);
+        }
+
+        return changed;
+    }
+
+    /**
+     * Checks if the value of the given variable is returned without any other computation, starting at the given
+     * instruction index.
+     */
+    private boolean isTailPosition(List<String> body, int start, String variable) {
+        String value = variable;
+        int index = start;
+
+        // bounding the walk by the body size also stops on jumps that loop
+        for (int steps = 0; steps < body.size() && index < body.size(); steps++) {
+            String inst = body.get(index);
+
+            Matcher ret = RETURN.matcher(inst);
+            Matcher copy = COPY.matcher(inst);
+            Matcher jump = GOTO.matcher(inst);
+
+            if (ret.matches()) {
+                return ret.group(2).equals(value);
+            } else if (copy.matches() && copy.group(3).equals(value)) {
+                value = copy.group(1);
+                index++;
+            } else if (jump.matches()) {
+                index = body.indexOf(jump.group(1) + ":");
+                if (index < 0) return false;
+            } else if (OllirMethodCode.isLabel(inst)) {
+                index++;
+            } else {
+                return false;
+            }
+        }
+
+        return false;
+    }
+}
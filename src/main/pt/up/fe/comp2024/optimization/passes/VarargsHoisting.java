@@ -0,0 +1,154 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp2024.optimization.OllirCode;
+import pt.up.fe.comp2024.optimization.OllirMethodCode;
+import pt.up.fe.comp2024.optimization.OllirPass;
+import pt.up.fe.comp2024.optimization.OptUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Allocates the varargs array of a call inside a loop only once, at the method entry, instead of on every iteration.
+ * <p>
+ * This is only done when the called method of this class doesn't let the array escape, i.e. it only reads its elements
+ * and length, or writes its elements. When the called method never writes to the array and all the arguments are
+ * literals, the element stores are hoisted too, so the loop no longer touches the array at all.
+ * <p>
+ * Java-- methods can be overloaded, and an OLLIR call only names the method, not its parameter types, so calls to an
+ * overloaded name are left alone: the body that tells how the array is used can't be chosen among the overloads.
+ */
+public class VarargsHoisting implements OllirPass {
+
+    private static final Pattern ALLOCATION = Pattern.compile("(\\w+)\\.array\\.i32 :=\\.array\\.i32 new\\(array, \\d+\\.i32\\)\\.array\\.i32;");
+    private static final Pattern COPY = Pattern.compile("(__varargs_array_\\d+)\\.array\\.i32\\s*:=\\.array\\.i32 (\\w+)\\.array\\.i32;");
+    private static final Pattern ELEMENT_STORE = Pattern.compile("(\\w+)\\.array\\.i32\\[\\d+\\.i32]\\.i32 :=\\.i32 (\\S+);");
+    private static final Pattern CALL = Pattern.compile(".*invokevirtual\\(([\\w$.]+?)\\.(\\w+), \"(\\w+)\".*, (\\w+)\\.array\\.i32\\)\\.[\\w.]+;");
+    private static final Pattern LITERAL = Pattern.compile("\\d+\\.i32");
+
+    private enum ArrayUse {
+        READ, WRITTEN, ESCAPES
+    }
+
+    @Override
+    public boolean optimize(OllirCode code, SymbolTable table) {
+        boolean changed = false;
+
+        for (OllirMethodCode method : code.getMethods()) {
+            // hoisting moves instructions around, so the method is searched again after it
+            while (hoistOnce(code, table, method)) {
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    private boolean hoistOnce(OllirCode code, SymbolTable table, OllirMethodCode method) {
+        for (int i = 0; i + 1 < method.getBody().size(); i++) {
+            if (hoist(code, table, method, i)) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Tries to hoist the varargs array allocated at the given index.
+     */
+    private boolean hoist(OllirCode code, SymbolTable table, OllirMethodCode method, int index) {
+        List<String> body = method.getBody();
+
+        Matcher allocation = ALLOCATION.matcher(body.get(index));
+        Matcher copy = COPY.matcher(body.get(index + 1));
+        if (!allocation.matches() || !copy.matches() || !copy.group(2).equals(allocation.group(1))) return false;
+        if (!method.isInLoop(index)) return false;
+
+        String array = copy.group(1);
+        List<Integer> stores = new ArrayList<>();
+        int callIndex = -1;
+
+        for (int i = index + 2; i < body.size() && callIndex < 0; i++) {
+            Matcher store = ELEMENT_STORE.matcher(body.get(i));
+            Matcher call = CALL.matcher(body.get(i));
+
+            if (store.matches() && store.group(1).equals(array)) stores.add(i);
+            else if (call.matches() && call.group(4).equals(array)) callIndex = i;
+            else if (OllirMethodCode.isLabel(body.get(i))) return false;
+        }
+        if (callIndex < 0) return false;
+
+        // the array must only be used by this call, and the allocation temporary only by the copy
+        Matcher call = CALL.matcher(body.get(callIndex));
+        call.matches();
+        if (countLines(body, array) != stores.size() + 2 || countLines(body, allocation.group(1)) != 2) return false;
+
+        if (isOverloaded(code, call.group(3))) return false;
+
+        // a subclass may override the method, unless the receiver was created with "new" of the class
+        Optional<OllirMethodCode> callee = code.getMethod(call.group(3));
+        boolean isClassInstance = method.getExactInstances(table.getClassName()).contains(call.group(1));
+        if (!call.group(2).equals(table.getClassName()) || !isClassInstance || callee.isEmpty()) return false;
+
+        ArrayUse use = getVarargsUse(callee.get());
+        if (use == ArrayUse.ESCAPES) return false;
+
+        List<String> hoisted = new ArrayList<>(List.of(body.get(index), body.get(index + 1)));
+        boolean isConstant = use == ArrayUse.READ && stores.stream()
+                .allMatch(store -> isLiteralStore(body.get(store)));
+
+        if (isConstant) {
+            for (int store = stores.size() - 1; store >= 0; store--) {
+                hoisted.add(2, body.remove((int) stores.get(store)));
+            }
+        }
+        body.remove(index + 1);
+        body.remove(index);
+        body.addAll(0, hoisted);
+
+        return true;
+    }
+
+    /**
+     * Finds how a method uses its last parameter, if it is an array.
+     */
+    private ArrayUse getVarargsUse(OllirMethodCode method) {
+        List<String> params = method.getParamNames();
+        List<String> types = method.getParamTypes();
+        if (params.isEmpty() || !types.get(types.size() - 1).equals(".array.i32")) return ArrayUse.ESCAPES;
+
+        String param = params.get(params.size() - 1);
+        String reference = "(\\$\\d+\\.)?" + param + "(\\.array\\.i32)?";
+        Pattern access = Pattern.compile(reference + "\\[|arraylength\\(" + reference + "\\)");
+        Pattern store = Pattern.compile(reference + "\\[.*]\\.i32 :=.*");
+
+        ArrayUse use = ArrayUse.READ;
+        for (String inst : method.getBody()) {
+            if (store.matcher(inst).matches()) use = ArrayUse.WRITTEN;
+
+            // any reference left after removing the element accesses lets the array escape
+            String rest = access.matcher(inst).replaceAll("");
+            if (OptUtils.getVariables(rest).contains(param) || rest.contains(param + "[")) return ArrayUse.ESCAPES;
+        }
+
+        return use;
+    }
+
+    private boolean isOverloaded(OllirCode code, String name) {
+        return code.getMethods().stream().filter(method -> method.getName().equals(name)).count() > 1;
+    }
+
+    private boolean isLiteralStore(String inst) {
+        Matcher store = ELEMENT_STORE.matcher(inst);
+        return store.matches() && LITERAL.matcher(store.group(2)).matches();
+    }
+
+    private int countLines(List<String> body, String variable) {
+        return (int) body.stream()
+                .filter(inst -> OptUtils.getVariables(inst).contains(variable))
+                .count();
+    }
+}
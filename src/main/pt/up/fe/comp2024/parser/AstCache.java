@@ -0,0 +1,103 @@
+package pt.up.fe.comp2024.parser;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2024.JavammLexer;
+import pt.up.fe.comp2024.JavammParser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the AST of a source file in a binary file next to it, e.g. "Foo.jmm.ast" for "Foo.jmm", so that compiling an
+ * unchanged file again doesn't need to parse it.
+ * <p>
+ * The cache starts with a fingerprint of the compiler that built it, then the length, modification time and CRC32 of
+ * the source it was built from, and is ignored when any of them no longer matches. The fingerprint covers the grammar,
+ * through the serialized ATNs of the generated lexer and parser, and the version of the binary format, so a cache
+ * written by a compiler with another grammar is never read.
+ */
+public class AstCache {
+
+    private static final String EXTENSION = ".ast";
+
+    static final long FINGERPRINT = fingerprint();
+
+    /**
+     * @return the cached AST of the source file, if there is one for its current contents
+     */
+    public static Optional<JmmNode> load(File source) {
+        File cache = getCacheFile(source);
+        if (!cache.isFile()) return Optional.empty();
+
+        try (var input = new DataInputStream(new BufferedInputStream(new FileInputStream(cache)))) {
+            boolean isValid = input.readLong() == FINGERPRINT
+                    && input.readLong() == source.length()
+                    && input.readLong() == source.lastModified()
+                    && input.readLong() == checksum(source);
+            if (!isValid) return Optional.empty();
+
+            return Optional.of(new BinaryAstReader(input).read());
+        } catch (IOException | RuntimeException e) {
+            // a cache that can't be read is the same as no cache
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes the AST of the source file to its cache. Failing to write it only means the next compilation parses the
+     * file again.
+     */
+    public static void store(File source, JmmNode root) {
+        File cache = getCacheFile(source);
+
+        File temp = null;
+        try {
+            // written to another file first, so that a compilation loading the cache never sees half of it
+            temp = File.createTempFile(cache.getName(), ".tmp", cache.getAbsoluteFile().getParentFile());
+            try (var output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                output.writeLong(FINGERPRINT);
+                output.writeLong(source.length());
+                output.writeLong(source.lastModified());
+                output.writeLong(checksum(source));
+
+                new BinaryAstWriter(output).write(root);
+            }
+            Files.move(temp.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | IllegalArgumentException e) {
+            if (temp != null) temp.delete();
+        }
+    }
+
+    private static File getCacheFile(File source) {
+        return new File(source.getPath() + EXTENSION);
+    }
+
+    private static long fingerprint() {
+        var checksum = new CRC32();
+        checksum.update(JavammLexer._serializedATN.getBytes(StandardCharsets.UTF_8));
+        checksum.update(JavammParser._serializedATN.getBytes(StandardCharsets.UTF_8));
+        checksum.update(BinaryAstWriter.VERSION);
+        return checksum.getValue();
+    }
+
+    private static long checksum(File source) throws IOException {
+        try (var channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            var checksum = new CRC32();
+            checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            return checksum.getValue();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package pt.up.fe.comp2024.parser;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static pt.up.fe.comp2024.parser.BinaryAstWriter.*;
+
+/**
+ * Reads an AST written by {@link BinaryAstWriter}.
+ */
+public class BinaryAstReader {
+
+    private final InputStream input;
+    private final List<String> strings = new ArrayList<>();
+
+    public BinaryAstReader(InputStream input) {
+        this.input = input;
+    }
+
+    public JmmNode read() throws IOException {
+        if (readInt() != MAGIC || readVarint() != VERSION) {
+            throw new IOException("Not a binary AST of version " + VERSION);
+        }
+
+        return readNode();
+    }
+
+    private JmmNodeImpl readNode() throws IOException {
+        var node = new JmmNodeImpl(readString());
+
+        int hierarchySize = readVarint();
+        List<String> hierarchy = new ArrayList<>(hierarchySize);
+        for (int i = 0; i < hierarchySize; i++) {
+            hierarchy.add(readString());
+        }
+        node.setHierarchy(hierarchy);
+
+        int attributes = readVarint();
+        for (int i = 0; i < attributes; i++) {
+            String attribute = readString();
+            node.putObject(attribute, readValue());
+        }
+
+        int children = readVarint();
+        for (int i = 0; i < children; i++) {
+            node.add(readNode());
+        }
+
+        return node;
+    }
+
+    private Object readValue() throws IOException {
+        int tag = readByte();
+
+        return switch (tag) {
+            case NULL -> null;
+            case STRING -> readString();
+            case TRUE -> true;
+            case FALSE -> false;
+            case INTEGER -> {
+                int zigzag = readVarint();
+                yield (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+            case LIST -> {
+                int size = readVarint();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue());
+                }
+                yield list;
+            }
+            default -> throw new IOException("Unknown attribute value tag " + tag);
+        };
+    }
+
+    private String readString() throws IOException {
+        int index = readVarint();
+        if (index > 0) {
+            if (index > strings.size()) throw new IOException("Unknown string " + index);
+            return strings.get(index - 1);
+        }
+
+        int length = readVarint();
+        byte[] bytes = input.readNBytes(length);
+        if (bytes.length < length) throw new EOFException();
+
+        String string = new String(bytes, StandardCharsets.UTF_8);
+        strings.add(string);
+
+        return string;
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+
+        throw new IOException("Malformed varint");
+    }
+
+    private int readInt() throws IOException {
+        return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+    }
+
+    private int readByte() throws IOException {
+        int b = input.read();
+        if (b < 0) throw new EOFException();
+        return b;
+    }
+}
@@ -0,0 +1,118 @@
+package pt.up.fe.comp2024.parser;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes an AST in a compact binary format, read back by {@link BinaryAstReader}.
+ * <p>
+ * Nodes are written in preorder as their kind, hierarchy, attributes and number of children, all counts and indexes as
+ * varints. Strings (kinds, attribute names and values) form a dictionary built while writing: the first occurrence of a
+ * string is written in full, and later ones only as its index, so the reader can rebuild the same dictionary as it goes.
+ */
+public class BinaryAstWriter {
+
+    static final int MAGIC = 0x4A4D4D42; // "JMMB"
+    static final int VERSION = 1;
+
+    static final int NULL = 0;
+    static final int STRING = 1;
+    static final int TRUE = 2;
+    static final int FALSE = 3;
+    static final int INTEGER = 4;
+    static final int LIST = 5;
+
+    private final OutputStream output;
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    public BinaryAstWriter(OutputStream output) {
+        this.output = output;
+    }
+
+    public void write(JmmNode root) throws IOException {
+        writeInt(MAGIC);
+        writeVarint(VERSION);
+        writeNode(root);
+        output.flush();
+    }
+
+    private void writeNode(JmmNode node) throws IOException {
+        writeString(node.getKind());
+
+        var hierarchy = node.getHierarchy();
+        writeVarint(hierarchy.size());
+        for (String kind : hierarchy) {
+            writeString(kind);
+        }
+
+        var attributes = node.getAttributes();
+        writeVarint(attributes.size());
+        for (String attribute : attributes) {
+            writeString(attribute);
+            writeValue(node.getObject(attribute));
+        }
+
+        var children = node.getChildren();
+        writeVarint(children.size());
+        for (JmmNode child : children) {
+            writeNode(child);
+        }
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            output.write(NULL);
+        } else if (value instanceof String string) {
+            output.write(STRING);
+            writeString(string);
+        } else if (value instanceof Boolean bool) {
+            output.write(bool ? TRUE : FALSE);
+        } else if (value instanceof Integer integer) {
+            output.write(INTEGER);
+            writeVarint((integer << 1) ^ (integer >> 31));
+        } else if (value instanceof List<?> list) {
+            output.write(LIST);
+            writeVarint(list.size());
+            for (Object element : list) {
+                writeValue(element);
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot serialize attribute value of " + value.getClass());
+        }
+    }
+
+    private void writeString(String string) throws IOException {
+        Integer index = strings.get(string);
+        if (index != null) {
+            writeVarint(index + 1);
+            return;
+        }
+
+        strings.put(string, strings.size());
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarint(0);
+        writeVarint(bytes.length);
+        output.write(bytes);
+    }
+
+    private void writeVarint(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.write(value);
+    }
+
+    private void writeInt(int value) throws IOException {
+        output.write(value >>> 24);
+        output.write(value >>> 16);
+        output.write(value >>> 8);
+        output.write(value);
+    }
+}
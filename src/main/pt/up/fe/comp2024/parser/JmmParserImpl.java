@@ -1,15 +1,29 @@
 package pt.up.fe.comp2024.parser;
 
-import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import pt.up.fe.comp.jmm.ast.antlr.AntlrParser;
 import pt.up.fe.comp.jmm.parser.JmmParser;
 import pt.up.fe.comp.jmm.parser.JmmParserResult;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.CompilerConfig;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Copyright 2022 SPeCS.
@@ -26,6 +40,18 @@ import java.util.Map;
 
 public class JmmParserImpl implements JmmParser {
 
+    // the generated lexer and parser keep their prediction DFAs in static fields shared by every instance
+    private static final AtomicInteger parsesSinceFlush = new AtomicInteger();
+
+    // parses use the shared DFAs under the read lock, and they are only cleared under the write lock, while no parse
+    // is in flight
+    private static final ReadWriteLock DFA_LOCK = new ReentrantReadWriteLock();
+
+    // the prediction contexts shared by the DFAs, used instead of the static caches of the generated lexer and parser,
+    // which can't be replaced, and replaced with new ones whenever the DFAs are cleared
+    private static PredictionContextCache lexerContexts = new PredictionContextCache();
+    private static PredictionContextCache parserContexts = new PredictionContextCache();
+
     @Override
     public String getDefaultRule() {
         return "program";
@@ -33,24 +59,125 @@ public class JmmParserImpl implements JmmParser {
 
     @Override
     public JmmParserResult parse(String jmmCode, String startingRule, Map<String, String> config) {
+        // Convert code string into a character stream
+        return parse(CharStreams.fromString(jmmCode), startingRule, config);
+    }
+
+    /**
+     * Parses the given file using the default rule. The file is memory-mapped instead of being read into a string.
+     * When the AST cache is enabled, the AST cached for the file is used if it is up to date, and otherwise the parsed
+     * AST is cached.
+     */
+    public JmmParserResult parse(File file, Map<String, String> config) {
+        boolean useCache = CompilerConfig.getAstCache(config);
+
+        if (useCache) {
+            var cached = AstCache.load(file);
+            if (cached.isPresent()) return new JmmParserResult(cached.get(), new ArrayList<>(), config);
+        }
 
         try {
-            // Convert code string into a character stream
-            var input = new ANTLRInputStream(jmmCode);
-            // Transform characters into tokens using the lexer
-            var lex = new pt.up.fe.comp2024.JavammLexer(input);
-            // Wrap lexer around a token stream
-            var tokens = new CommonTokenStream(lex);
-            // Transforms tokens into a parse tree
-            var parser = new pt.up.fe.comp2024.JavammParser(tokens);
+            var result = parse(new MappedCharStream(file), getDefaultRule(), config);
 
+            if (useCache && result.getRootNode() != null && result.getReports().isEmpty()) {
+                AstCache.store(file, result.getRootNode());
+            }
 
-            // Convert ANTLR CST to JmmNode AST
-            return AntlrParser.parse(lex, parser, startingRule, config);
+            return result;
+        } catch (IOException e) {
+            return JmmParserResult.newError(Report.newError(Stage.SYNTATIC, -1, -1, "Could not read '" + file + "'", e), config);
+        }
+    }
+
+    private JmmParserResult parse(CharStream input, String startingRule, Map<String, String> config) {
+        flushSharedCaches(config);
+
+        DFA_LOCK.readLock().lock();
+        try {
+            // SLL prediction is much faster and accepts almost every valid program, so full LL prediction is only used
+            // to parse again the programs SLL rejects, either because they are invalid or need the full context
+            try {
+                return parse(input, startingRule, config, PredictionMode.SLL);
+            } catch (RuntimeException e) {
+                if (!isCancelled(e)) throw e;
+            }
+
+            input.seek(0);
+            return parse(input, startingRule, config, PredictionMode.LL);
 
         } catch (Exception e) {
             // There was an uncaught exception during parsing, create an error JmmParserResult without root node
             return JmmParserResult.newError(Report.newError(Stage.SYNTATIC, -1, -1, "Exception during parsing", e), config);
+        } finally {
+            DFA_LOCK.readLock().unlock();
+        }
+    }
+
+    private JmmParserResult parse(CharStream input, String startingRule, Map<String, String> config, PredictionMode mode) {
+        // Transform characters into tokens using the lexer
+        var lex = new pt.up.fe.comp2024.JavammLexer(input);
+        lex.setInterpreter(new LexerATNSimulator(lex, lex.getATN(), lex.getInterpreter().decisionToDFA, lexerContexts));
+        // Wrap lexer around a token stream
+        var tokens = new CommonTokenStream(lex);
+        // Transforms tokens into a parse tree
+        var parser = new pt.up.fe.comp2024.JavammParser(tokens);
+        parser.setInterpreter(new ParserATNSimulator(parser, parser.getATN(), parser.getInterpreter().decisionToDFA,
+                parserContexts));
+
+        parser.getInterpreter().setPredictionMode(mode);
+        if (mode == PredictionMode.SLL) {
+            // give up at the first error instead of recovering, the LL parse reports it
+            parser.setErrorHandler(new BailErrorStrategy());
         }
+
+        // Convert ANTLR CST to JmmNode AST
+        return AntlrParser.parse(lex, parser, startingRule, config);
+    }
+
+    /**
+     * Clears the prediction DFAs shared by all parses, and replaces the caches of the prediction contexts they refer
+     * to, after the number of parses set in the config, so that a long-running process doesn't keep growing them. The
+     * DFAs are cleared once the parses in flight end, and the parses that start meanwhile wait for it.
+     */
+    private void flushSharedCaches(Map<String, String> config) {
+        int flushInterval = CompilerConfig.getDfaFlush(config);
+        if (flushInterval <= 0 || parsesSinceFlush.incrementAndGet() < flushInterval) return;
+
+        DFA_LOCK.writeLock().lock();
+        try {
+            // the parses that reached the interval together only clear the DFAs once
+            if (parsesSinceFlush.get() < flushInterval) return;
+
+            var lex = new pt.up.fe.comp2024.JavammLexer(null);
+            var parser = new pt.up.fe.comp2024.JavammParser(null);
+            lex.getInterpreter().clearDFA();
+            parser.getInterpreter().clearDFA();
+            lexerContexts = new PredictionContextCache();
+            parserContexts = new PredictionContextCache();
+
+            parsesSinceFlush.set(0);
+        } finally {
+            DFA_LOCK.writeLock().unlock();
+        }
+    }
+
+    static PredictionContextCache getParserContexts() {
+        DFA_LOCK.readLock().lock();
+        try {
+            return parserContexts;
+        } finally {
+            DFA_LOCK.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return true if the exception comes from a parse given up at the first syntax error
+     */
+    private boolean isCancelled(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ParseCancellationException) return true;
+        }
+
+        return false;
     }
 }
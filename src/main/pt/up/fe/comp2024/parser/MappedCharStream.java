@@ -0,0 +1,94 @@
+package pt.up.fe.comp2024.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Character stream over a memory-mapped source file, so the lexer reads the file without copying it to the heap.
+ * <p>
+ * Java-- sources are ASCII, so each byte of the file is one character. Any other byte is read as the Latin-1
+ * character with the same value, which the lexer then rejects.
+ */
+public class MappedCharStream implements CharStream {
+
+    private final MappedByteBuffer buffer;
+    private final String sourceName;
+    private int index = 0;
+
+    public MappedCharStream(File file) throws IOException {
+        try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        this.sourceName = file.getName();
+    }
+
+    @Override
+    public void consume() {
+        if (index >= size()) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        index++;
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i == 0) return 0;
+
+        // negative offsets look back from the last consumed character
+        int position = i < 0 ? index + i : index + i - 1;
+        if (position < 0 || position >= size()) return IntStream.EOF;
+
+        return buffer.get(position) & 0xFF;
+    }
+
+    @Override
+    public int mark() {
+        // the whole file is always available, so there is nothing to keep
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return index;
+    }
+
+    @Override
+    public void seek(int index) {
+        this.index = Math.min(index, size());
+    }
+
+    @Override
+    public int size() {
+        return buffer.limit();
+    }
+
+    @Override
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = interval.a;
+        int stop = Math.min(interval.b, size() - 1);
+        if (start >= size() || stop < start) return "";
+
+        char[] text = new char[stop - start + 1];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = (char) (buffer.get(start + i) & 0xFF);
+        }
+
+        return new String(text);
+    }
+}
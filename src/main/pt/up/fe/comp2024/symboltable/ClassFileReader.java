@@ -0,0 +1,111 @@
+package pt.up.fe.comp2024.symboltable;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the signatures of a class from its class file. Only the constant pool, the names of the class and its super
+ * class, and the tables of fields and methods are read, everything else is skipped.
+ */
+public class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    public static ClassSignature read(byte[] classFile) throws IOException {
+        var input = new DataInputStream(new ByteArrayInputStream(classFile));
+
+        if (input.readInt() != MAGIC) throw new IOException("Not a class file");
+        input.readUnsignedShort(); // minor version
+        input.readUnsignedShort(); // major version
+
+        // only the strings are kept, and the classes as the index of their name
+        int poolSize = input.readUnsignedShort();
+        String[] strings = new String[poolSize];
+        int[] classNames = new int[poolSize];
+
+        for (int i = 1; i < poolSize; i++) {
+            int tag = input.readUnsignedByte();
+
+            switch (tag) {
+                case CONSTANT_UTF8 -> strings[i] = input.readUTF();
+                case CONSTANT_CLASS -> classNames[i] = input.readUnsignedShort();
+                case CONSTANT_STRING, CONSTANT_METHOD_TYPE, CONSTANT_MODULE, CONSTANT_PACKAGE -> input.skipNBytes(2);
+                case CONSTANT_METHOD_HANDLE -> input.skipNBytes(3);
+                case CONSTANT_INTEGER, CONSTANT_FLOAT, CONSTANT_FIELD_REF, CONSTANT_METHOD_REF,
+                        CONSTANT_INTERFACE_METHOD_REF, CONSTANT_NAME_AND_TYPE, CONSTANT_DYNAMIC,
+                        CONSTANT_INVOKE_DYNAMIC -> input.skipNBytes(4);
+                case CONSTANT_LONG, CONSTANT_DOUBLE -> {
+                    // takes two entries of the pool
+                    input.skipNBytes(8);
+                    i++;
+                }
+                default -> throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+
+        input.readUnsignedShort(); // access flags
+        String name = toQualifiedName(strings[classNames[input.readUnsignedShort()]]);
+        int superClass = input.readUnsignedShort();
+        String superName = superClass == 0 ? "" : toQualifiedName(strings[classNames[superClass]]);
+        if (superName.equals("java.lang.Object")) superName = "";
+
+        input.skipNBytes(2L * input.readUnsignedShort()); // interfaces
+
+        var fields = readMembers(input, strings);
+        var methods = readMembers(input, strings);
+
+        return new ClassSignature(name, superName, methods, fields);
+    }
+
+    private static List<ClassSignature.Member> readMembers(DataInputStream input, String[] strings) throws IOException {
+        int count = input.readUnsignedShort();
+        List<ClassSignature.Member> members = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            int access = input.readUnsignedShort();
+            String name = strings[input.readUnsignedShort()];
+            String descriptor = strings[input.readUnsignedShort()];
+
+            int attributes = input.readUnsignedShort();
+            for (int j = 0; j < attributes; j++) {
+                input.readUnsignedShort(); // name
+                input.skipNBytes(Integer.toUnsignedLong(input.readInt()));
+            }
+
+            // constructors and the code the compiler adds can't be called from Java--
+            if ((access & ACC_SYNTHETIC) != 0 || name.startsWith("<")) continue;
+
+            members.add(new ClassSignature.Member(name, descriptor, (access & ACC_STATIC) != 0));
+        }
+
+        return members;
+    }
+
+    private static String toQualifiedName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+}
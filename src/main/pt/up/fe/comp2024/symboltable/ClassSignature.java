@@ -0,0 +1,157 @@
+package pt.up.fe.comp2024.symboltable;
+
+import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp2024.ast.TypeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The signatures declared by a compiled class, as read from its class file.
+ */
+public class ClassSignature {
+
+    private final String name;
+    private final String superName;
+    private final List<Member> methods;
+    private final List<Member> fields;
+
+    public ClassSignature(String name, String superName, List<Member> methods, List<Member> fields) {
+        this.name = name;
+        this.superName = superName;
+        this.methods = List.copyOf(methods);
+        this.fields = List.copyOf(fields);
+    }
+
+    /**
+     * @return the qualified name of the class, e.g. "foo.bar.A"
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the qualified name of the super class, or an empty string for java.lang.Object
+     */
+    public String getSuperName() {
+        return superName;
+    }
+
+    public List<Member> getMethods() {
+        return methods;
+    }
+
+    public List<Member> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return the methods with the given name and number of parameters
+     */
+    public List<Member> getMethods(String methodName, int arity) {
+        List<Member> candidates = new ArrayList<>();
+
+        for (var method : methods) {
+            if (method.getName().equals(methodName) && method.getParamDescriptors().size() == arity) {
+                candidates.add(method);
+            }
+        }
+
+        return candidates;
+    }
+
+    /**
+     * @return the return type of the method called with the given number of arguments, if the class declares it and
+     * all its overloads with that many parameters return the same Java-- type
+     */
+    public Optional<Type> getReturnType(String methodName, int arity) {
+        Type returnType = null;
+
+        for (var method : getMethods(methodName, arity)) {
+            Type type = toType(method.getReturnDescriptor());
+            if (type == null || (returnType != null && !returnType.equals(type))) return Optional.empty();
+            returnType = type;
+        }
+
+        return Optional.ofNullable(returnType);
+    }
+
+    /**
+     * Converts a field descriptor, e.g. "I" or "[Ljava/lang/String;", to the Java-- type it stands for. Classes are
+     * named by their simple name, as in the imports.
+     *
+     * @return the type, or null if the descriptor has no Java-- equivalent
+     */
+    public static Type toType(String descriptor) {
+        boolean isArray = descriptor.startsWith("[");
+        String element = isArray ? descriptor.substring(1) : descriptor;
+
+        return switch (element.charAt(0)) {
+            case 'I' -> isArray ? TypeUtils.INT_ARRAY_TYPE : TypeUtils.INT_TYPE;
+            case 'Z' -> isArray ? null : TypeUtils.BOOL_TYPE;
+            case 'V' -> isArray ? null : TypeUtils.VOID_TYPE;
+            case 'L' -> {
+                String className = element.substring(element.lastIndexOf('/') + 1, element.length() - 1);
+                yield TypeUtils.getType(className, isArray);
+            }
+            default -> null;
+        };
+    }
+
+    /**
+     * A method or field of a class.
+     */
+    public static class Member {
+
+        private final String name;
+        private final String descriptor;
+        private final boolean isStatic;
+
+        public Member(String name, String descriptor, boolean isStatic) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.isStatic = isStatic;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the descriptor of the member, e.g. "(Ljava/lang/String;I)V" for a method or "I" for a field
+         */
+        public String getDescriptor() {
+            return descriptor;
+        }
+
+        public boolean isStatic() {
+            return isStatic;
+        }
+
+        /**
+         * @return the descriptor of the return type of a method, or of the type of a field
+         */
+        public String getReturnDescriptor() {
+            return descriptor.substring(descriptor.lastIndexOf(')') + 1);
+        }
+
+        /**
+         * @return the descriptors of the parameters of a method
+         */
+        public List<String> getParamDescriptors() {
+            List<String> params = new ArrayList<>();
+            if (!descriptor.startsWith("(")) return params;
+
+            int i = 1;
+            while (descriptor.charAt(i) != ')') {
+                int start = i;
+                while (descriptor.charAt(i) == '[') i++;
+                i = descriptor.charAt(i) == 'L' ? descriptor.indexOf(';', i) + 1 : i + 1;
+                params.add(descriptor.substring(start, i));
+            }
+
+            return params;
+        }
+    }
+}
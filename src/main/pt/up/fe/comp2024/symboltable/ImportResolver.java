@@ -0,0 +1,144 @@
+package pt.up.fe.comp2024.symboltable;
+
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.analysis.ImportedClass;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+
+/**
+ * Finds the signatures of imported classes in the class files of the classpath, which has directories and JARs.
+ */
+public class ImportResolver {
+
+    private static final int MAX_CACHED_CLASSES = 256;
+
+    // the classes last used by any compilation in this process, by classpath and qualified name
+    private static final Map<String, CachedClass> CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedClass> eldest) {
+                    return size() > MAX_CACHED_CLASSES;
+                }
+            });
+
+    private final List<File> classpath;
+    private final SignatureIndex index;
+    private final String classpathKey;
+
+    public ImportResolver(List<File> classpath, SignatureIndex index) {
+        this.classpath = classpath;
+        this.index = index;
+        this.classpathKey = classpath.stream().map(File::getAbsolutePath).collect(Collectors.joining(File.pathSeparator));
+    }
+
+    public static ImportResolver fromConfig(Map<String, String> config) {
+        var index = CompilerConfig.getSignatureIndex(config)
+                .map(SignatureIndex::load)
+                .orElseGet(SignatureIndex::inMemory);
+
+        return new ImportResolver(CompilerConfig.getClasspath(config), index);
+    }
+
+    /**
+     * Gets the imported class with the given name. The classes are kept in a cache shared by all compilations, and
+     * read again only when they are no longer in it or their class file changed.
+     *
+     * @param qualifiedName the name of the class as imported, e.g. "foo.bar.A"
+     * @return the class, if it is in the classpath and can be read
+     */
+    public Optional<ImportedClass> resolveClass(String qualifiedName) {
+        String key = classpathKey + File.pathSeparator + qualifiedName;
+
+        var cached = CACHE.get(key);
+        if (cached != null && cached.isValid()) return Optional.of(cached.importedClass);
+
+        var signature = resolve(qualifiedName);
+        if (signature.isEmpty()) return Optional.empty();
+
+        var importedClass = new ImportedClass(signature.get());
+        index.getSource(classpathKey, qualifiedName).ifPresent(source -> CACHE.put(key, new CachedClass(source, importedClass)));
+
+        return Optional.of(importedClass);
+    }
+
+    /**
+     * @param qualifiedName the name of the class as imported, e.g. "foo.bar.A"
+     * @return the signature of the first class with that name in the classpath, if any can be read
+     */
+    public Optional<ClassSignature> resolve(String qualifiedName) {
+        var indexed = index.get(classpathKey, qualifiedName);
+        if (indexed.isPresent()) return indexed;
+
+        String entryName = qualifiedName.replace('.', '/') + ".class";
+
+        for (File location : classpath) {
+            try {
+                // the file checked later to know if the signature is still valid
+                File source = location.isDirectory() ? new File(location, entryName) : location;
+                var signature = location.isDirectory() ? readClass(source) : readJarEntry(source, entryName);
+
+                if (signature.isPresent()) {
+                    index.put(classpathKey, qualifiedName, source, signature.get());
+                    return signature;
+                }
+            } catch (IOException e) {
+                // a class that can't be read is the same as a missing one
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Keeps the signatures read so far for the next compilations, if the index is kept in a file.
+     */
+    public void save() {
+        index.store();
+    }
+
+    private Optional<ClassSignature> readClass(File classFile) throws IOException {
+        if (!classFile.isFile()) return Optional.empty();
+
+        return Optional.of(ClassFileReader.read(Files.readAllBytes(classFile.toPath())));
+    }
+
+    private Optional<ClassSignature> readJarEntry(File jar, String entryName) throws IOException {
+        if (!jar.isFile()) return Optional.empty();
+
+        try (var jarFile = new JarFile(jar)) {
+            var entry = jarFile.getJarEntry(entryName);
+            if (entry == null) return Optional.empty();
+
+            try (var input = jarFile.getInputStream(entry)) {
+                return Optional.of(ClassFileReader.read(input.readAllBytes()));
+            }
+        }
+    }
+
+    private static class CachedClass {
+        private final File source;
+        private final long length;
+        private final long lastModified;
+        private final ImportedClass importedClass;
+
+        private CachedClass(File source, ImportedClass importedClass) {
+            this.source = source;
+            this.length = source.length();
+            this.lastModified = source.lastModified();
+            this.importedClass = importedClass;
+        }
+
+        private boolean isValid() {
+            return source.length() == length && source.lastModified() == lastModified;
+        }
+    }
+}
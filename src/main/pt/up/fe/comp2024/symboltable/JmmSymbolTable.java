@@ -3,6 +3,7 @@ package pt.up.fe.comp2024.symboltable;
 import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp2024.analysis.ImportedClass;
 import pt.up.fe.comp2024.ast.TypeUtils;
 import pt.up.fe.specs.util.exceptions.NotImplementedException;
 
@@ -14,10 +15,8 @@ public class JmmSymbolTable implements SymbolTable {
     private final String className;
     private final String superClass;
     private final List<Symbol> fields;
-    private final List<String> methods;
-    private final Map<String, Type> returnTypes;
-    private final Map<String, List<Symbol>> params;
-    private final Map<String, List<Symbol>> locals;
+    private final MethodTable methods;
+    private final Map<String, ImportedClass> importedClasses;
     private final Map<String, Boolean> isArrayMap = new HashMap<>();
     private final Map<String, Boolean> isVarArgsMap = new HashMap<>();
 
@@ -25,18 +24,14 @@ public class JmmSymbolTable implements SymbolTable {
                           String className,
                           String superClass,
                           List<Symbol> fields,
-                          List<String> methods,
-                          Map<String, Type> returnTypes,
-                          Map<String, List<Symbol>> params,
-                          Map<String, List<Symbol>> locals) {
+                          MethodTable methods,
+                          Map<String, ImportedClass> importedClasses) {
         this.imports = imports;
         this.className = className;
         this.superClass = superClass;
         this.fields = fields;
         this.methods = methods;
-        this.returnTypes = returnTypes;
-        this.params = params;
-        this.locals = locals;
+        this.importedClasses = importedClasses;
 
         initializeMaps();
     }
@@ -63,22 +58,44 @@ public class JmmSymbolTable implements SymbolTable {
 
     @Override
     public List<String> getMethods() {
-        return methods;
+        return methods.getMethods().stream().map(MethodTable.Method::getName).toList();
     }
 
+    /**
+     * The methods can be given by signature, e.g. "foo(int, boolean[])", or by name, which stands for the first
+     * overload declared.
+     */
     @Override
     public Type getReturnType(String methodSignature) {
-        return returnTypes.get(methodSignature);
+        return getMethod(methodSignature).map(MethodTable.Method::getReturnType).orElse(null);
     }
 
     @Override
     public List<Symbol> getParameters(String methodSignature) {
-        return params.get(methodSignature);
+        return getMethod(methodSignature).map(MethodTable.Method::getParams).orElse(null);
     }
 
     @Override
     public List<Symbol> getLocalVariables(String methodSignature) {
-        return locals.get(methodSignature);
+        return getMethod(methodSignature).map(MethodTable.Method::getLocals).orElse(null);
+    }
+
+    public MethodTable getMethodTable() {
+        return methods;
+    }
+
+    private Optional<MethodTable.Method> getMethod(String methodSignature) {
+        if (methodSignature.endsWith(")")) return methods.get(methodSignature);
+
+        return methods.getOverloads(methodSignature).stream().findFirst();
+    }
+
+    /**
+     * @param className the name of an imported class, as in {@link #getImports()}
+     * @return the class, if it was found in the classpath
+     */
+    public Optional<ImportedClass> getImportedClass(String className) {
+        return Optional.ofNullable(importedClasses.get(className));
     }
 
     private void initializeMaps() {
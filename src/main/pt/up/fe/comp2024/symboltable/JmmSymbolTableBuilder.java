@@ -3,7 +3,9 @@ package pt.up.fe.comp2024.symboltable;
 import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2024.analysis.ImportedClass;
 import pt.up.fe.comp2024.ast.Kind;
+import pt.up.fe.comp2024.ast.NodeUtils;
 import pt.up.fe.comp2024.ast.TypeUtils;
 import pt.up.fe.specs.util.SpecsCheck;
 
@@ -16,7 +18,17 @@ public class JmmSymbolTableBuilder {
 
     public static JmmSymbolTable build(JmmNode root) {
 
+        return build(root, Collections.emptyMap());
+    }
+
+    /**
+     * Builds the symbol table of the program, with the signatures of the imported classes found in the classpath set in
+     * the config.
+     */
+    public static JmmSymbolTable build(JmmNode root, Map<String, String> config) {
+
         var imports = getImportDecl(root);
+        var importedClasses = resolveImports(root, ImportResolver.fromConfig(config));
 
         var classDecl = root.getChildren(CLASS_DECL).get(0);
         assert classDecl != null;
@@ -26,52 +38,64 @@ public class JmmSymbolTableBuilder {
 
         var fields = getFields(classDecl);
         var methods = buildMethods(classDecl);
-        var returnTypes = buildReturnTypes(classDecl);
-        var params = buildParams(classDecl);
-        var locals = buildLocals(classDecl);
 
-        return new JmmSymbolTable(imports, className, superClass, fields, methods, returnTypes, params, locals);
+        return new JmmSymbolTable(imports, className, superClass, fields, methods, importedClasses);
     }
 
     private static List<String> getImportDecl(JmmNode root){
         List<String> imports = new ArrayList<>();
 
         for(JmmNode child : root.getChildren(IMPORT_DECL)){
-            String packageName = child.get("packageName");
-            String trimmedInput = packageName.substring(1, packageName.length() - 1);
-            String[] packages = trimmedInput.split(",\\s*");
+            String[] packages = getImportPath(child);
             imports.add(packages[packages.length - 1]);
         }
 
         return imports;
     }
 
+    private static String[] getImportPath(JmmNode importDecl) {
+        String packageName = importDecl.get("packageName");
+        String trimmedInput = packageName.substring(1, packageName.length() - 1);
+        return trimmedInput.split(",\\s*");
+    }
+
+    private static Map<String, ImportedClass> resolveImports(JmmNode root, ImportResolver resolver) {
+        Map<String, ImportedClass> importedClasses = new HashMap<>();
+
+        for (JmmNode child : root.getChildren(IMPORT_DECL)) {
+            String[] packages = getImportPath(child);
+            String qualifiedName = String.join(".", packages);
+            String className = packages[packages.length - 1];
+
+            resolver.resolveClass(qualifiedName).ifPresent(importedClass -> importedClasses.put(className, importedClass));
+        }
+
+        resolver.save();
+
+        return importedClasses;
+    }
+
     private static List<Symbol> getFields(JmmNode root){
         List<Symbol> fields = new ArrayList<>();
         for(JmmNode child : root.getChildren(VAR_DECL)){
-            fields.add(new Symbol(new Type(child.getJmmChild(0).get("name"), Boolean.parseBoolean(child.getJmmChild(0).get("isArray"))  || Boolean.parseBoolean(child.getJmmChild(0).get("isVarArgs"))), child.get("name")));
+            fields.add(new Symbol(NodeUtils.getDeclaredType(child.getJmmChild(0)), child.get("name")));
         }
         return fields;
     }
 
-    private static Map<String, Type> buildReturnTypes(JmmNode classDecl) {
-        Map<String, Type> map = new HashMap<>();
+    private static MethodTable buildMethods(JmmNode classDecl) {
+        var methods = new MethodTable();
 
-        for(JmmNode child : classDecl.getChildren(METHOD_DECL)){
-            JmmNode retType = child.getChildren(TYPE).get(0);
-            Type type = new Type(retType.get("name"), Boolean.parseBoolean(retType.get("isArray")) || Boolean.parseBoolean(retType.get("isVarArgs")));
-            map.put(child.get("name"), type);
-        }
-
-        return map;
-    }
+        for (JmmNode method : classDecl.getChildren(METHOD_DECL)) {
+            Type returnType = NodeUtils.getDeclaredType(method.getChildren(TYPE).get(0));
+            var params = method.getChildren(PARAM);
+            boolean isVarArgs = !params.isEmpty()
+                    && NodeUtils.getBooleanAttribute(params.get(params.size() - 1).getJmmChild(0), "isVarArgs", "false");
 
-    private static Map<String, List<Symbol>> buildParams(JmmNode classDecl) {
-        Map<String, List<Symbol>> map = new HashMap<>();
-
-        classDecl.getChildren(METHOD_DECL).forEach(method -> map.put(method.get("name"), getMethodParams(method)));
+            methods.add(new MethodTable.Method(method, returnType, getMethodParams(method), getLocalsList(method), isVarArgs));
+        }
 
-        return map;
+        return methods;
     }
 
     private static List<Symbol> getMethodParams(JmmNode method){
@@ -79,32 +103,18 @@ public class JmmSymbolTableBuilder {
 
         for(JmmNode param : method.getChildren(PARAM)){
             JmmNode varType = param.getJmmChild(0);
-            Type type = new Type(varType.get("name"), Boolean.parseBoolean(varType.get("isArray")) || Boolean.parseBoolean(varType.get("isVarArgs")));
+            Type type = NodeUtils.getDeclaredType(varType);
             params.add( new Symbol(type, param.get("name")));
         }
 
         return params;
     }
 
-    private static Map<String, List<Symbol>> buildLocals(JmmNode classDecl) {
-        Map<String, List<Symbol>> map = new HashMap<>();
-        classDecl.getChildren(METHOD_DECL).forEach(method -> map.put(method.get("name"), getLocalsList(method)));
-
-        return map;
-    }
-
-    private static List<String> buildMethods(JmmNode classDecl) {
-        return classDecl.getChildren(METHOD_DECL).stream()
-                .map(method -> method.get("name"))
-                .toList();
-    }
-
-
     private static List<Symbol> getLocalsList(JmmNode methodDecl) {
         //var intType = new Type(TypeUtils.getIntTypeName(), false);
 
         return methodDecl.getChildren(VAR_DECL).stream()
-                .map(varDecl -> new Symbol(new Type(varDecl.getChild(0).get("name"), Boolean.parseBoolean(varDecl.getChild(0).get("isArray"))  || Boolean.parseBoolean(varDecl.getChild(0).get("isVarArgs"))), varDecl.get("name")))
+                .map(varDecl -> new Symbol(NodeUtils.getDeclaredType(varDecl.getChild(0)), varDecl.get("name")))
                 .toList();
     }
 
@@ -0,0 +1,191 @@
+package pt.up.fe.comp2024.symboltable;
+
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2024.ast.NodeUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static pt.up.fe.comp2024.ast.Kind.PARAM;
+
+/**
+ * The methods declared by the class, by signature, e.g. "quicksort(int[], int, int)", so that overloads are kept apart.
+ * The methods are also indexed by name, and by name and number of parameters, to find the one a call refers to.
+ */
+public class MethodTable {
+
+    private final Map<String, Method> bySignature = new LinkedHashMap<>();
+    private final Map<JmmNode, Method> byDeclaration = new IdentityHashMap<>();
+    private final Map<String, List<Method>> byName = new HashMap<>();
+    private final Map<String, List<Method>> byNameAndArity = new HashMap<>();
+    private final List<Method> duplicates = new ArrayList<>();
+
+    /**
+     * Adds a method, unless one with the same signature was already added, in which case it is kept as a duplicate.
+     */
+    public void add(Method method) {
+        byDeclaration.put(method.getDeclaration(), method);
+        if (bySignature.putIfAbsent(method.getSignature(), method) != null) {
+            duplicates.add(method);
+            return;
+        }
+
+        byName.computeIfAbsent(method.getName(), name -> new ArrayList<>()).add(method);
+        byNameAndArity.computeIfAbsent(getKey(method.getName(), method.getParams().size()), key -> new ArrayList<>())
+                .add(method);
+    }
+
+    /**
+     * @return the methods in the order they were declared, without duplicates
+     */
+    public List<Method> getMethods() {
+        return new ArrayList<>(bySignature.values());
+    }
+
+    /**
+     * @return the methods declared with the same signature as an earlier one
+     */
+    public List<Method> getDuplicates() {
+        return duplicates;
+    }
+
+    public Optional<Method> get(String signature) {
+        return Optional.ofNullable(bySignature.get(signature));
+    }
+
+    /**
+     * @return the method declared by the given MethodDecl node, including duplicates
+     */
+    public Optional<Method> get(JmmNode methodDecl) {
+        return Optional.ofNullable(byDeclaration.get(methodDecl));
+    }
+
+    /**
+     * @return the methods with the given name, in the order they were declared
+     */
+    public List<Method> getOverloads(String name) {
+        return byName.getOrDefault(name, List.of());
+    }
+
+    /**
+     * Finds the method a call refers to. The types of the arguments are only computed when the name is overloaded.
+     * When no overload matches the arguments exactly, the first one that may take them is returned, or else the first
+     * one declared, so that the checks of the call report what is wrong with it.
+     *
+     * @param argTypes the types of the arguments, where a null type, e.g. of an unsupported expression, matches nothing
+     */
+    public Optional<Method> resolve(String name, int arity, Supplier<List<Type>> argTypes) {
+        var overloads = getOverloads(name);
+        if (overloads.size() <= 1) return overloads.stream().findFirst();
+
+        var candidates = byNameAndArity.getOrDefault(getKey(name, arity), List.of());
+        if (candidates.size() == 1) return Optional.of(candidates.get(0));
+
+        var types = argTypes.get();
+        var exact = bySignature.get(getSignature(name, types));
+        if (exact != null) return Optional.of(exact);
+
+        if (!candidates.isEmpty()) return Optional.of(candidates.get(0));
+
+        // varargs methods take any number of arguments from one less than their number of parameters
+        for (var method : overloads) {
+            if (method.isVarArgs() && arity >= method.getParams().size() - 1) return Optional.of(method);
+        }
+
+        return Optional.of(overloads.get(0));
+    }
+
+    /**
+     * @return the signature of a method declaration, as kept by the method table of the symbol table if it has one
+     */
+    public static String getSignature(JmmNode methodDecl, SymbolTable table) {
+        if (table instanceof JmmSymbolTable jmmTable) {
+            var method = jmmTable.getMethodTable().get(methodDecl);
+            if (method.isPresent()) return method.get().getSignature();
+        }
+
+        return getSignature(methodDecl);
+    }
+
+    private static String getSignature(JmmNode methodDecl) {
+        List<Type> paramTypes = methodDecl.getChildren(PARAM).stream()
+                .map(param -> NodeUtils.getDeclaredType(param.getChild(0)))
+                .toList();
+        return getSignature(methodDecl.get("name"), paramTypes);
+    }
+
+    public static String getSignature(String name, List<Type> paramTypes) {
+        return paramTypes.stream()
+                .map(type -> type == null ? "?" : type.getName() + (type.isArray() ? "[]" : ""))
+                .collect(Collectors.joining(", ", name + "(", ")"));
+    }
+
+    private static String getKey(String name, int arity) {
+        return name + "/" + arity;
+    }
+
+    /**
+     * A method declared by the class.
+     */
+    public static class Method {
+
+        private final String signature;
+        private final String name;
+        private final Type returnType;
+        private final List<Symbol> params;
+        private final List<Symbol> locals;
+        private final boolean isVarArgs;
+        private final JmmNode declaration;
+
+        public Method(JmmNode declaration, Type returnType, List<Symbol> params, List<Symbol> locals, boolean isVarArgs) {
+            this.signature = MethodTable.getSignature(declaration);
+            this.name = declaration.get("name");
+            this.returnType = returnType;
+            this.params = params;
+            this.locals = locals;
+            this.isVarArgs = isVarArgs;
+            this.declaration = declaration;
+        }
+
+        public String getSignature() {
+            return signature;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Type getReturnType() {
+            return returnType;
+        }
+
+        public List<Symbol> getParams() {
+            return params;
+        }
+
+        public List<Symbol> getLocals() {
+            return locals;
+        }
+
+        public boolean isVarArgs() {
+            return isVarArgs;
+        }
+
+        /**
+         * @return the MethodDecl node of the method
+         */
+        public JmmNode getDeclaration() {
+            return declaration;
+        }
+    }
+}
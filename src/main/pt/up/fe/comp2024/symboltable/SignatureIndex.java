@@ -0,0 +1,216 @@
+package pt.up.fe.comp2024.symboltable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Signatures of the classes already read, by classpath and qualified name, optionally kept in a file so that later
+ * compilations don't need to read the classes again. The same class name can stand for different classes in different
+ * classpaths, so a signature is only found again with the classpath it was read from.
+ * <p>
+ * The file is read whole when the index is loaded, and written whole when it is stored. Each signature is kept with the
+ * length and modification time of the class file or JAR it was read from, and is ignored when they no longer match. A
+ * class added to an earlier entry of the classpath is not noticed while the one it hides is unchanged.
+ */
+public class SignatureIndex {
+
+    private static final int MAGIC = 0x4A4D4D53; // "JMMS"
+    private static final int VERSION = 2;
+
+    private final File file;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private boolean isModified = false;
+
+    private SignatureIndex(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @return an index that is not kept in a file
+     */
+    public static SignatureIndex inMemory() {
+        return new SignatureIndex(null);
+    }
+
+    /**
+     * @return the index kept in the given file, which is empty if the file doesn't exist or can't be read
+     */
+    public static SignatureIndex load(File file) {
+        var index = new SignatureIndex(file);
+        if (!file.isFile()) return index;
+
+        // read into memory instead of mapped, so that the file can be replaced by store while the index is in use
+        try {
+            index.read(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+        } catch (IOException | RuntimeException e) {
+            // an index that can't be read is the same as an empty one
+            index.entries.clear();
+        }
+
+        return index;
+    }
+
+    /**
+     * @param classpath the classpath the class is looked up in, e.g. its absolute paths joined by the path separator
+     * @return the signature of the class, if it was read from the same classpath and the file it was read from is
+     * unchanged
+     */
+    public Optional<ClassSignature> get(String classpath, String qualifiedName) {
+        String key = getKey(classpath, qualifiedName);
+        var entry = entries.get(key);
+        if (entry == null) return Optional.empty();
+
+        var source = new File(entry.source);
+        if (source.length() != entry.length || source.lastModified() != entry.lastModified) {
+            entries.remove(key);
+            isModified = true;
+            return Optional.empty();
+        }
+
+        return Optional.of(entry.signature);
+    }
+
+    /**
+     * @return the class file or JAR the signature of the class was read from in the classpath, if it is in the index
+     */
+    public Optional<File> getSource(String classpath, String qualifiedName) {
+        return Optional.ofNullable(entries.get(getKey(classpath, qualifiedName))).map(entry -> new File(entry.source));
+    }
+
+    public void put(String classpath, String qualifiedName, File source, ClassSignature signature) {
+        var entry = new Entry(classpath, source.getAbsolutePath(), source.length(), source.lastModified(), signature);
+        entries.put(getKey(classpath, qualifiedName), entry);
+        isModified = true;
+    }
+
+    /**
+     * Writes the index to its file, if it has one and was changed. Failing to write it only means the next compilation
+     * reads the classes again.
+     */
+    public void store() {
+        if (file == null || !isModified) return;
+
+        File temp = null;
+        try {
+            // written to another file first, so that a compilation reading the index never sees half of it
+            temp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+            try (var output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                write(output);
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            isModified = false;
+        } catch (IOException e) {
+            if (temp != null) temp.delete();
+        }
+    }
+
+    private void read(ByteBuffer input) throws IOException {
+        if (input.getInt() != MAGIC || input.getInt() != VERSION) {
+            throw new IOException("Not a signature index of version " + VERSION);
+        }
+
+        int size = input.getInt();
+        for (int i = 0; i < size; i++) {
+            String classpath = readString(input);
+            String qualifiedName = readString(input);
+            String source = readString(input);
+            long length = input.getLong();
+            long lastModified = input.getLong();
+
+            String superName = readString(input);
+            var methods = readMembers(input);
+            var fields = readMembers(input);
+
+            var signature = new ClassSignature(qualifiedName, superName, methods, fields);
+            entries.put(getKey(classpath, qualifiedName), new Entry(classpath, source, length, lastModified, signature));
+        }
+    }
+
+    private List<ClassSignature.Member> readMembers(ByteBuffer input) {
+        int size = input.getInt();
+        List<ClassSignature.Member> members = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            String name = readString(input);
+            String descriptor = readString(input);
+            members.add(new ClassSignature.Member(name, descriptor, input.get() != 0));
+        }
+
+        return members;
+    }
+
+    private String readString(ByteBuffer input) {
+        byte[] bytes = new byte[input.getInt()];
+        input.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void write(DataOutputStream output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(entries.size());
+
+        for (var entry : entries.values()) {
+            var signature = entry.signature;
+
+            writeString(output, entry.classpath);
+            writeString(output, signature.getName());
+            writeString(output, entry.source);
+            output.writeLong(entry.length);
+            output.writeLong(entry.lastModified);
+
+            writeString(output, signature.getSuperName());
+            writeMembers(output, signature.getMethods());
+            writeMembers(output, signature.getFields());
+        }
+    }
+
+    private void writeMembers(DataOutputStream output, List<ClassSignature.Member> members) throws IOException {
+        output.writeInt(members.size());
+
+        for (var member : members) {
+            writeString(output, member.getName());
+            writeString(output, member.getDescriptor());
+            output.writeBoolean(member.isStatic());
+        }
+    }
+
+    private void writeString(DataOutputStream output, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String getKey(String classpath, String qualifiedName) {
+        // the separator can't be part of a path or of a class name
+        return classpath + '\0' + qualifiedName;
+    }
+
+    private static class Entry {
+        private final String classpath;
+        private final String source;
+        private final long length;
+        private final long lastModified;
+        private final ClassSignature signature;
+
+        private Entry(String classpath, String source, long length, long lastModified, ClassSignature signature) {
+            this.classpath = classpath;
+            this.source = source;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.signature = signature;
+        }
+    }
+}
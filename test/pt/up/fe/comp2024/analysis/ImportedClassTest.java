@@ -0,0 +1,97 @@
+package pt.up.fe.comp2024.analysis;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp2024.ast.TypeUtils;
+import pt.up.fe.comp2024.symboltable.ClassSignature;
+import pt.up.fe.comp2024.symboltable.ImportResolver;
+import pt.up.fe.comp2024.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2024.symboltable.SignatureIndex;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ImportedClassTest {
+
+    private static final List<File> CLASSPATH = List.of(new File("libs-jmm/compiled"));
+
+    @Test
+    public void fromSignature() {
+        var methods = List.of(
+                new ClassSignature.Member("random", "(II)I", true),
+                new ClassSignature.Member("print", "(I)V", true),
+                new ClassSignature.Member("print", "(Z)V", true),
+                new ClassSignature.Member("name", "()Ljava/lang/String;", true),
+                new ClassSignature.Member("big", "()J", true),
+                new ClassSignature.Member("mixed", "()I", false),
+                new ClassSignature.Member("mixed", "(I)Z", false));
+        var fields = List.of(
+                new ClassSignature.Member("count", "I", false),
+                new ClassSignature.Member("total", "J", false));
+        var importedClass = new ImportedClass(new ClassSignature("foo.Utils", "java/lang/Object", methods, fields));
+
+        assertEquals("Utils", importedClass.getClassName());
+        assertEquals(TypeUtils.INT_TYPE, importedClass.getReturnType("random", 2).orElseThrow());
+        assertEquals(TypeUtils.VOID_TYPE, importedClass.getReturnType("print", 1).orElseThrow());
+        assertEquals(TypeUtils.INT_TYPE, importedClass.getReturnType("mixed", 0).orElseThrow());
+        assertEquals(TypeUtils.BOOL_TYPE, importedClass.getReturnType("mixed", 1).orElseThrow());
+
+        // long has no Java-- type, and no overload has three parameters
+        assertTrue(importedClass.getReturnType("big", 0).isEmpty());
+        assertTrue(importedClass.getReturnType("random", 3).isEmpty());
+    }
+
+    @Test
+    public void notFound() {
+        var importedClass = new ImportedClass("Missing");
+
+        assertEquals("Missing", importedClass.getClassName());
+        assertTrue(importedClass.getReturnType("anything", 0).isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void signatureCopiesMembers() {
+        var methods = new ArrayList<>(List.of(new ClassSignature.Member("random", "()I", true)));
+        var signature = new ClassSignature("Utils", "", methods, new ArrayList<>());
+        methods.clear();
+
+        // the signature is shared through the caches, so it can't change with the lists it was built from
+        assertEquals(1, signature.getMethods().size());
+        signature.getFields().add(new ClassSignature.Member("count", "I", false));
+    }
+
+    @Test
+    public void cachedAcrossResolvers() {
+        var first = new ImportResolver(CLASSPATH, SignatureIndex.inMemory()).resolveClass("MathUtils").orElseThrow();
+        var second = new ImportResolver(CLASSPATH, SignatureIndex.inMemory()).resolveClass("MathUtils").orElseThrow();
+
+        assertSame(first, second);
+        assertEquals(TypeUtils.INT_TYPE, first.getReturnType("random", 2).orElseThrow());
+    }
+
+    @Test
+    public void importedInSymbolTable() {
+        var code = """
+                import io;
+                import MathUtils;
+                class Uses {
+                    public static void main(String[] args) {
+                        int x;
+                        x = MathUtils.random(1, 2);
+                        io.println(x);
+                    }
+                }""";
+
+        var result = TestUtils.analyse(code);
+        TestUtils.noErrors(result);
+
+        var table = (JmmSymbolTable) result.getSymbolTable();
+        assertEquals(TypeUtils.INT_TYPE, table.getImportedClass("MathUtils").orElseThrow().getReturnType("random", 2).orElseThrow());
+        assertEquals(TypeUtils.VOID_TYPE, table.getImportedClass("io").orElseThrow().getReturnType("println", 1).orElseThrow());
+    }
+}
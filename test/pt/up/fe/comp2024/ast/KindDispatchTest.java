@@ -0,0 +1,45 @@
+package pt.up.fe.comp2024.ast;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class KindDispatchTest {
+
+    @Test
+    public void fromString() {
+        for (Kind kind : Kind.values()) {
+            assertSame(kind, Kind.fromString(kind.getNodeName()));
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void fromStringUnknown() {
+        Kind.fromString("NotAKind");
+    }
+
+    @Test
+    public void lookUpOncePerKind() {
+        var dispatch = new KindDispatch<Void, String>();
+        List<String> lookups = new ArrayList<>();
+
+        BiFunction<JmmNode, Void, String> visit = (node, unused) -> node.getKind();
+        for (var kind : List.of("BinaryExpr", "IntegerLiteral", "BinaryExpr", "NotAKind", "NotAKind")) {
+            var found = dispatch.get(new JmmNodeImpl(kind), node -> {
+                lookups.add(node.getKind());
+                return visit;
+            });
+            assertSame(visit, found);
+        }
+
+        // nodes without a Kind are always looked up
+        assertEquals(List.of("BinaryExpr", "IntegerLiteral", "NotAKind", "NotAKind"), lookups);
+    }
+}
@@ -0,0 +1,58 @@
+package pt.up.fe.comp2024.ast;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NodeUtilsTest {
+
+    @Test
+    public void typedAndStringAttributes() {
+        var node = new JmmNodeImpl("Test");
+        node.putObject("typed", true);
+        node.put("text", "true");
+        node.putObject("line", 12);
+        node.put("col", "7");
+
+        assertTrue(NodeUtils.getBooleanAttribute(node, "typed", "false"));
+        assertTrue(NodeUtils.getBooleanAttribute(node, "text", "false"));
+        assertFalse(NodeUtils.getBooleanAttribute(node, "missing", "false"));
+        assertEquals(12, NodeUtils.getIntegerAttribute(node, "line", "-1"));
+        assertEquals(7, NodeUtils.getIntegerAttribute(node, "col", "-1"));
+        assertEquals(-1, NodeUtils.getIntegerAttribute(node, "missing", "-1"));
+    }
+
+    @Test
+    public void declaredTypes() {
+        var code = """
+                class Types {
+                    public int f(int[] a, boolean b, int... c) {
+                        return 0;
+                    }
+                    public static void main(String[] args) {
+                    }
+                }""";
+
+        var result = TestUtils.parse(code);
+        TestUtils.noErrors(result.getReports());
+
+        var types = result.getRootNode().getDescendants(Kind.TYPE).stream()
+                .map(NodeUtils::getDeclaredType)
+                .toList();
+        assertEquals(List.of(TypeUtils.INT_TYPE, TypeUtils.INT_ARRAY_TYPE, TypeUtils.BOOL_TYPE,
+                TypeUtils.INT_ARRAY_TYPE, TypeUtils.VOID_TYPE, TypeUtils.getType("String", true)), types);
+
+        // shared through the pool of types, without adding attributes to the node
+        var typeNode = result.getRootNode().getDescendants(Kind.TYPE).get(1);
+        var attributes = List.copyOf(typeNode.getAttributes());
+        assertSame(NodeUtils.getDeclaredType(typeNode), NodeUtils.getDeclaredType(typeNode));
+        assertEquals(attributes, List.copyOf(typeNode.getAttributes()));
+    }
+}
@@ -0,0 +1,34 @@
+package pt.up.fe.comp2024.ast;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.specs.util.SpecsIo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TypeUtilsTest {
+
+    @Test
+    public void typesArePooled() {
+        assertSame(TypeUtils.INT_TYPE, TypeUtils.getType("int", false));
+        assertSame(TypeUtils.INT_ARRAY_TYPE, TypeUtils.getType("int", true));
+        assertSame(TypeUtils.getType("Foo", false), TypeUtils.getType("Foo", false));
+        assertNotSame(TypeUtils.getType("Foo", false), TypeUtils.getType("Foo", true));
+        assertEquals(new Type("Foo", true), TypeUtils.getType("Foo", true));
+    }
+
+    @Test
+    public void analysisKeepsPooledTypesUnchanged() {
+        var result = TestUtils.analyse(SpecsIo.getResource("pt/up/fe/comp2024/symboltable/QuicksortOverloads.jmm"));
+        TestUtils.noErrors(result);
+
+        for (var type : new Type[]{TypeUtils.INT_TYPE, TypeUtils.INT_ARRAY_TYPE, TypeUtils.BOOL_TYPE,
+                TypeUtils.VOID_TYPE, TypeUtils.getType("QuicksortOverloads", false)}) {
+            assertTrue("Attributes were put in the shared type " + type, type.getAttributes().isEmpty());
+        }
+    }
+}
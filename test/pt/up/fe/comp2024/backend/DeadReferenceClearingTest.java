@@ -0,0 +1,37 @@
+package pt.up.fe.comp2024.backend;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class DeadReferenceClearingTest {
+
+    @Test
+    public void clearBeforeLoop() {
+        var code = List.of("aload_1", "arraylength", "istore_2", "l:", "iinc 2 -1", "iload_2", "ifgt l", "return");
+
+        var expected = List.of("aload_1", "aconst_null", "astore 1", "arraylength", "istore_2", "l:", "iinc 2 -1",
+                "iload_2", "ifgt l", "return");
+        assertEquals(expected, new DeadReferenceClearing().clear(code, true));
+    }
+
+    @Test
+    public void keepWithoutLoop() {
+        var code = List.of("aload_1", "arraylength", "istore_2", "iload_2", "ireturn");
+        assertEquals(code, new DeadReferenceClearing().clear(code, true));
+    }
+
+    @Test
+    public void keepLiveInLoop() {
+        var code = List.of("l:", "aload_1", "arraylength", "istore_2", "iload_2", "ifgt l", "return");
+        assertEquals(code, new DeadReferenceClearing().clear(code, true));
+    }
+
+    @Test
+    public void keepThis() {
+        var code = List.of("aload_0", "invokevirtual A/f()V", "l:", "iinc 1 -1", "iload_1", "ifgt l", "return");
+        assertEquals(code, new DeadReferenceClearing().clear(code, false));
+    }
+}
@@ -0,0 +1,23 @@
+package pt.up.fe.comp2024.backend;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.Collections;
+
+public class JasminGeneratorTest {
+
+    @Test
+    public void sharedLabels() {
+        var ollir = new OllirResult(SpecsIo.getResource("pt/up/fe/comp2024/backend/SharedLabels.ollir"),
+                Collections.emptyMap());
+        var result = TestUtils.backend(ollir);
+
+        // both labels of the call are emitted, so both jumps to it assemble
+        CpUtils.matches(result, "first:\\s+second:");
+        CpUtils.runJasmin(result, "1\n2");
+    }
+}
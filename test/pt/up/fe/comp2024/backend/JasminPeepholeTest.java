@@ -0,0 +1,64 @@
+package pt.up.fe.comp2024.backend;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class JasminPeepholeTest {
+
+    private static List<String> optimize(String... instructions) {
+        return new JasminPeephole().optimize(List.of(instructions));
+    }
+
+    @Test
+    public void storeLoad() {
+        assertEquals(List.of("iload_1", "ireturn"), optimize("iload_1", "istore_2", "iload_2", "ireturn"));
+        assertEquals(List.of("iload_1", "istore_2", "iload_2", "iload_2", "iadd", "ireturn"),
+                optimize("iload_1", "istore_2", "iload_2", "iload_2", "iadd", "ireturn"));
+    }
+
+    @Test
+    public void deadStore() {
+        assertEquals(List.of("return"), optimize("iconst_1", "istore 3", "return"));
+        assertEquals(List.of("aload_1", "invokevirtual A/f()I", "pop", "return"),
+                optimize("aload_1", "invokevirtual A/f()I", "istore 3", "return"));
+    }
+
+    @Test
+    public void gotoNext() {
+        assertEquals(List.of("return"), optimize("goto a", "a:", "return"));
+    }
+
+    @Test
+    public void branchOverGoto() {
+        assertEquals(List.of("iload_1", "ifeq b", "iconst_1", "ireturn", "b:", "iconst_0", "ireturn"),
+                optimize("iload_1", "ifne a", "goto b", "a:", "iconst_1", "ireturn", "b:", "iconst_0", "ireturn"));
+    }
+
+    @Test
+    public void comparisonBranch() {
+        var expected = List.of("iload_1", "iload_2", "if_icmplt l", "iconst_0", "ireturn", "l:", "iconst_1", "ireturn");
+        assertEquals(expected, optimize("iload_1", "iload_2", "if_icmplt t", "ldc 0", "goto s", "t:", "ldc 1", "s:",
+                "ifne l", "iconst_0", "ireturn", "l:", "iconst_1", "ireturn"));
+
+        expected = List.of("iload_1", "iload_2", "if_icmpge l", "iconst_0", "ireturn", "l:", "iconst_1", "ireturn");
+        assertEquals(expected, optimize("iload_1", "iload_2", "if_icmplt t", "ldc 0", "goto s", "t:", "ldc 1", "s:",
+                "ifeq l", "iconst_0", "ireturn", "l:", "iconst_1", "ireturn"));
+    }
+
+    @Test
+    public void constantBranch() {
+        assertEquals(List.of("iconst_1", "ireturn"),
+                optimize("ldc 1", "ifne l", "iconst_0", "ireturn", "l:", "iconst_1", "ireturn"));
+        assertEquals(List.of("iconst_0", "ireturn"),
+                optimize("ldc 0", "ifne l", "iconst_0", "ireturn", "l:", "iconst_1", "ireturn"));
+    }
+
+    @Test
+    public void loopIsKept() {
+        var loop = List.of("iconst_0", "istore_1", "l:", "iinc 1 1", "iload_1", "bipush 10", "if_icmplt l", "return");
+        assertEquals(loop, new JasminPeephole().optimize(loop));
+    }
+}
@@ -0,0 +1,59 @@
+package pt.up.fe.comp2024.optimization;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JmmOptimizationImplTest {
+
+    private static final String SMALL_METHODS = "pt/up/fe/comp2024/optimization/inlining/SmallMethods.jmm";
+
+    private static boolean isInlined(OllirResult result) {
+        return !result.getOllirCode().contains("\"twice\"");
+    }
+
+    @Test
+    public void toOllirRunsPassesOnce() {
+        var semantics = TestUtils.analyse(SpecsIo.getResource(SMALL_METHODS), OptimizationPassesTest.getConfig(true));
+        var optimization = new JmmOptimizationImpl();
+
+        var result = optimization.toOllir(semantics);
+        assertTrue("Passes did not run before parsing the OLLIR code:\n" + result.getOllirCode(), isInlined(result));
+        assertSame(result, optimization.optimize(result));
+    }
+
+    @Test
+    public void optimizeOtherResult() {
+        var code = SpecsIo.getResource(SMALL_METHODS);
+        var unoptimized = new JmmOptimizationImpl().toOllir(TestUtils.analyse(code, OptimizationPassesTest.getConfig(false)));
+        assertFalse(isInlined(unoptimized));
+
+        // a result that didn't come from toOllir with optimizations still goes through the passes
+        var semantics = TestUtils.analyse(code, OptimizationPassesTest.getConfig(true));
+        var result = new OllirResult(semantics, unoptimized.getOllirCode(), Collections.emptyList());
+        var optimized = new JmmOptimizationImpl().optimize(result);
+
+        assertNotSame(result, optimized);
+        assertTrue("Passes did not run:\n" + optimized.getOllirCode(), isInlined(optimized));
+        assertEquals(semantics.getSymbolTable(), optimized.getSymbolTable());
+    }
+
+    @Test
+    public void withoutOptimizations() {
+        var semantics = TestUtils.analyse(SpecsIo.getResource(SMALL_METHODS), OptimizationPassesTest.getConfig(false));
+        var optimization = new JmmOptimizationImpl();
+
+        var result = optimization.toOllir(semantics);
+        assertFalse(isInlined(result));
+        assertSame(result, optimization.optimize(result));
+    }
+}
@@ -0,0 +1,49 @@
+package pt.up.fe.comp2024.optimization;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.analysis.table.Type;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class OptUtilsTest {
+
+    @Test
+    public void getVariablesOfAssign() {
+        assertEquals(List.of("x", "a", "b"), OptUtils.getVariables("x.i32 :=.i32 a.i32 +.i32 $1.b.i32;"));
+    }
+
+    @Test
+    public void getVariablesOfArrayRead() {
+        assertEquals(List.of("x", "a", "i"), OptUtils.getVariables("x.i32 :=.i32 a[i.i32].i32;"));
+        assertEquals(List.of("x", "a", "i"), OptUtils.getVariables("x.i32 :=.i32 a.array.i32[i.i32].i32;"));
+    }
+
+    @Test
+    public void getVariablesOfArrayStore() {
+        assertEquals(List.of("a", "i", "x"), OptUtils.getVariables("a[i.i32].i32 :=.i32 x.i32;"));
+    }
+
+    @Test
+    public void getVariablesSkipsFieldsAndThis() {
+        assertEquals(List.of("x"), OptUtils.getVariables("x.i32 :=.i32 getfield(this, f.i32).i32;"));
+    }
+
+    @Test
+    public void replaceVariablesOfArrayRead() {
+        String renamed = OptUtils.replaceVariables("x.i32 :=.i32 $1.a[i.i32].i32;", name -> "inl0_" + name);
+        assertEquals("inl0_x.i32 :=.i32 inl0_a[inl0_i.i32].i32;", renamed);
+    }
+
+    @Test
+    public void toOllirTypeInParallel() {
+        IntStream.range(0, 1000).parallel().forEach(i -> {
+            String name = "C" + i % 50;
+            assertEquals("." + name, OptUtils.toOllirType(new Type(name, false)));
+            assertEquals(".array." + name, OptUtils.toOllirType(new Type(name, true)));
+            assertEquals(".array.i32", OptUtils.toOllirType(new Type("int", true)));
+        });
+    }
+}
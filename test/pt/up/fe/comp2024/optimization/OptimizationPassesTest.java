@@ -0,0 +1,256 @@
+package pt.up.fe.comp2024.optimization;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2024.optimization.passes.CommonSubexpressionElimination;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compiles programs with and without optimizations, checking that they still print the same and that the passes changed
+ * the OLLIR code as expected.
+ */
+public class OptimizationPassesTest {
+
+    private static final String RESOURCES = "pt/up/fe/comp2024/optimization/";
+
+    static Map<String, String> getConfig(boolean optimize) {
+        Map<String, String> config = new HashMap<>();
+        config.put("optimize", String.valueOf(optimize));
+        return config;
+    }
+
+    static OllirResult getOllirResultOpt(String filename) {
+        return TestUtils.optimize(SpecsIo.getResource(RESOURCES + filename), getConfig(true));
+    }
+
+    static JasminResult getJasminResult(String filename, boolean optimize) {
+        return TestUtils.backend(SpecsIo.getResource(RESOURCES + filename), getConfig(optimize));
+    }
+
+    /**
+     * @return the OLLIR code of the method with the given name, from its header to its closing brace
+     */
+    static String getMethodBody(String ollir, String methodName) {
+        var method = Pattern.compile("\\.method [^\\n]*\\b" + methodName + "\\(.*?\\n}", Pattern.DOTALL).matcher(ollir);
+        assertTrue("Method " + methodName + " not found:\n" + ollir, method.find());
+        return method.group();
+    }
+
+    /**
+     * Runs the program compiled without and with optimizations.
+     */
+    static void testRun(String filename, String expected) {
+        CpUtils.runJasmin(getJasminResult(filename, false), expected);
+        CpUtils.runJasmin(getJasminResult(filename, true), expected);
+    }
+
+    @Test
+    public void inlining_SmallMethods() {
+        testRun("inlining/SmallMethods.jmm", "42\n50");
+
+        var ollir = getOllirResultOpt("inlining/SmallMethods.jmm").getOllirCode();
+        assertFalse("Calls were not inlined:\n" + ollir, ollir.contains("\"twice\"") || ollir.contains("\"sum\""));
+    }
+
+    @Test
+    public void tailCall_SelfRecursion() {
+        // the conditions of the recursion are compared into variables, which the backend doesn't assemble
+        var ollir = getOllirResultOpt("tail_call/SelfRecursion.jmm").getOllirCode();
+
+        for (var method : List.of("sum", "swap")) {
+            var body = getMethodBody(ollir, method);
+            assertFalse("Tail call of " + method + " was not removed:\n" + ollir, body.contains("\"" + method + "\""));
+            assertTrue("Tail call of " + method + " is not a loop:\n" + ollir, body.contains("goto tailcall_entry"));
+        }
+    }
+
+    @Test
+    public void tailCall_BooleanCountdown() {
+        // counts down on two boolean parameters, so the loop runs without comparisons into variables
+        testRun("tail_call/Countdown.jmm", "5");
+
+        var body = getMethodBody(getOllirResultOpt("tail_call/Countdown.jmm").getOllirCode(), "fib");
+        assertFalse("Tail call was not removed:\n" + body, body.contains("\"fib\""));
+        assertTrue("Tail call is not a loop:\n" + body, body.contains("goto tailcall_entry"));
+    }
+
+    @Test
+    public void tailCall_OverloadedMethod() {
+        // "this.f(n)" in "f(int[])" calls the other overload, so it is not a loop back to the entry
+        testRun("tail_call/Overloaded.jmm", "4");
+
+        var body = getMethodBody(getOllirResultOpt("tail_call/Overloaded.jmm").getOllirCode(), "f");
+        assertTrue("Call to another overload was removed:\n" + body, body.contains("\"f\""));
+    }
+
+    @Test
+    public void algebraic_Identities() {
+        testRun("algebraic/Identities.jmm", "5\n42");
+
+        var body = getMethodBody(getOllirResultOpt("algebraic/Identities.jmm").getOllirCode(), "simplify");
+        assertFalse("Identities were not simplified:\n" + body, body.contains("*.i32") || body.contains("-.i32"));
+    }
+
+    @Test
+    public void algebraic_StrengthLoop() {
+        // the loop condition is compared into a variable, which the backend doesn't assemble
+        var body = getMethodBody(getOllirResultOpt("algebraic/StrengthLoop.jmm").getOllirCode(), "sum");
+        var loop = body.split("whilebody_\\d+:", 2)[1];
+        assertFalse("Multiplication was not reduced in the loop:\n" + body, loop.contains("*.i32"));
+        assertTrue("Reduced variable is not incremented in the loop:\n" + body, loop.contains("+.i32 12.i32"));
+    }
+
+    @Test
+    public void algebraic_StrengthCountdown() {
+        // the loop is driven by boolean method results, so the program runs without comparisons into variables
+        testRun("algebraic/StrengthCountdown.jmm", "36\n0");
+
+        var body = getMethodBody(getOllirResultOpt("algebraic/StrengthCountdown.jmm").getOllirCode(), "sum");
+        var loop = body.split("whilebody_\\d+:", 2)[1];
+        assertFalse("Multiplication was not reduced in the loop:\n" + body, loop.contains("*.i32"));
+        assertTrue("Reduced variable is not incremented in the loop:\n" + body, loop.contains("+.i32 12.i32"));
+    }
+
+    @Test
+    public void cse_AcrossBranches() {
+        testRun("cse/AcrossBranches.jmm", "85\n83");
+
+        var body = getMethodBody(getOllirResultOpt("cse/AcrossBranches.jmm").getOllirCode(), "f");
+        assertEquals("Product was computed again in the branches:\n" + body, 1, body.split("\\*\\.i32", -1).length - 1);
+    }
+
+    @Test
+    public void varargs_CallInLoop() {
+        // the loop condition is compared into a variable, which the backend doesn't assemble
+        var body = getMethodBody(getOllirResultOpt("varargs/CallInLoop.jmm").getOllirCode(), "run");
+        var parts = body.split("whilebody_\\d+:", 2);
+        assertTrue("Varargs array is not allocated before the loop:\n" + body, parts[0].contains("new(array, 3.i32)"));
+        assertFalse("Varargs array is still allocated or filled in the loop:\n" + body,
+                parts[1].contains("new(array") || parts[1].contains(":=.i32 4.i32"));
+    }
+
+    @Test
+    public void varargs_CountdownLoop() {
+        // the loop is driven by boolean method results, so the program runs without comparisons into variables
+        testRun("varargs/Countdown.jmm", "12\n0");
+
+        var body = getMethodBody(getOllirResultOpt("varargs/Countdown.jmm").getOllirCode(), "run");
+        var parts = body.split("whilebody_\\d+:", 2);
+        assertTrue("Varargs array is not allocated before the loop:\n" + body, parts[0].contains("new(array, 3.i32)"));
+        assertFalse("Varargs array is still allocated or filled in the loop:\n" + body,
+                parts[1].contains("new(array") || parts[1].contains(":=.i32 4.i32"));
+    }
+
+    @Test
+    public void varargs_OverloadedCallee() {
+        // the call names "first" only, so the overload whose body tells how the array is used isn't known
+        var body = getMethodBody(getOllirResultOpt("varargs/Overloaded.jmm").getOllirCode(), "run");
+        var parts = body.split("whilebody_\\d+:", 2);
+        assertFalse("Varargs array of an overloaded method was hoisted:\n" + body, parts[0].contains("new(array, 3.i32)"));
+        assertTrue("Varargs array is not allocated in the loop:\n" + body, parts[1].contains("new(array, 3.i32)"));
+    }
+
+    @Test
+    public void scalarReplacement_LocalObject() {
+        testRun("scalar/LocalObject.jmm", "0\nfalse");
+
+        var body = getMethodBody(getOllirResultOpt("scalar/LocalObject.jmm").getOllirCode(), "main");
+        assertFalse("Object that doesn't escape was allocated:\n" + body, body.contains("new(LocalObject)"));
+        assertFalse("Fields of the replaced object were read:\n" + body, body.contains("getfield"));
+    }
+
+    @Test
+    public void summaries_ConstantCall() {
+        testRun("summaries/ConstantCall.jmm", "4\n4\n1\n3");
+
+        var body = getMethodBody(getOllirResultOpt("summaries/ConstantCall.jmm").getOllirCode(), "main");
+        assertFalse("Call returning a constant was not folded:\n" + body, body.contains("\"pick\""));
+        assertTrue("Call with side effects was folded:\n" + body, body.contains("\"loud\""));
+    }
+
+    @Test
+    public void summaries_MayNotReturn() {
+        testRun("summaries/MayNotReturn.jmm", "1\n1");
+
+        // folding or removing a call that may never return would turn a hanging program into one that finishes
+        var body = getMethodBody(getOllirResultOpt("summaries/MayNotReturn.jmm").getOllirCode(), "main");
+        for (var method : List.of("spin", "ping", "pong")) {
+            assertTrue("Call to " + method + " was folded or removed:\n" + body, body.contains("\"" + method + "\""));
+        }
+    }
+
+    @Test
+    public void cse_FieldWriteThroughAlias() {
+        // inlining a call on another reference leaves a write to its field, which may be a field of this
+        var table = TestUtils.analyse("class FieldAlias { int x; public static void main(String[] args) { } }")
+                .getSymbolTable();
+        var code = OllirCode.parse(SpecsIo.getResource(RESOURCES + "cse/FieldAlias.ollir"));
+        new CommonSubexpressionElimination().optimize(code, table);
+
+        var body = getMethodBody(code.toString(), "run");
+        assertTrue("Field read was reused after a write to it:\n" + body,
+                body.contains("b.i32 :=.i32 getfield(this, x.i32).i32;"));
+        CpUtils.runJasmin(TestUtils.backend(new OllirResult(code.toString(), Collections.emptyMap())), "5");
+    }
+
+    @Test
+    public void copyPropagation_ArrayLiteralCopy() {
+        testRun("copy_prop/ArrayLiteralCopy.jmm", "6\n3\n4\n2");
+
+        var ollir = getOllirResultOpt("copy_prop/ArrayLiteralCopy.jmm").getOllirCode();
+        assertFalse("Copy of the array was not propagated:\n" + ollir, ollir.contains("b.array.i32 :="));
+    }
+
+    @Test
+    public void copyPropagation_InlinedArrayLiteral() {
+        testRun("copy_prop/InlinedArrayLiteral.jmm", "5\n100");
+    }
+
+    @Test
+    public void arrayLiteral_FillLoop() {
+        testRun("array_literal/FillLoop.jmm", "10\n5\n5\n7");
+
+        var ollir = TestUtils.optimize(SpecsIo.getResource(RESOURCES + "array_literal/FillLoop.jmm")).getOllirCode();
+        assertTrue("Run of literals was not stored with a loop:\n" + ollir, ollir.contains("goto fill_"));
+    }
+
+    @Test
+    public void arrayLiteral_PackedDigits() {
+        testRun("array_literal/Packed.jmm", "15\n3\n9\n6\n0\n7\n100\n0");
+
+        // 3, 1, 4, 1, 5, 9, 2, 6, 0, 0 as the digits of a base 10 number, least significant first
+        var ollir = TestUtils.optimize(SpecsIo.getResource(RESOURCES + "array_literal/Packed.jmm")).getOllirCode();
+        assertTrue("Literals were not packed:\n" + ollir, ollir.contains(":=.i32 62951413.i32;"));
+        assertTrue("Literals were not unpacked with a loop:\n" + ollir, ollir.contains("goto unpack_"));
+        assertFalse("Packed literal was also stored:\n" + ollir, ollir.contains(":=.i32 9.i32;"));
+    }
+
+    @Test
+    public void devirtualization_ExactReceiver() {
+        testRun("devirt/Printer.jmm", "6\n8\n16\n13\n13\n1\n2\n4\n3\n3");
+
+        var ollir = getOllirResultOpt("devirt/Printer.jmm").getOllirCode();
+        assertTrue("Call was not devirtualized:\n" + ollir,
+                Pattern.compile("invokespecial\\(\\w+\\.Printer, \"show\"").matcher(ollir).find());
+
+        // a parameter may hold an object of a subclass overriding the method
+        String again = getMethodBody(ollir, "again");
+        assertTrue("Call on a parameter was devirtualized:\n" + again, again.contains("invokevirtual("));
+
+        // other classes may still extend the compiled one
+        CpUtils.matches(getJasminResult("devirt/Printer.jmm", true), "\\.class\\s+public\\s+Printer");
+    }
+}
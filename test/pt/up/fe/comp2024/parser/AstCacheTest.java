@@ -0,0 +1,125 @@
+package pt.up.fe.comp2024.parser;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AstCacheTest {
+
+    private static final String QUICKSORT = "pt/up/fe/comp2024/parser/Quicksort.jmm";
+
+    // the fingerprint of the compiler, then the length, modification time and checksum of the source
+    private static final int HEADER_SIZE = 4 * Long.BYTES;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File getSource() throws IOException {
+        File source = folder.newFile("Quicksort.jmm");
+        Files.writeString(source.toPath(), SpecsIo.getResource(QUICKSORT));
+        return source;
+    }
+
+    private static Map<String, String> getConfig() {
+        Map<String, String> config = new HashMap<>();
+        config.put("astCache", "true");
+        return config;
+    }
+
+    private static String parseTree(File source) {
+        var result = new JmmParserImpl().parse(source, getConfig());
+        TestUtils.noErrors(result.getReports());
+        return result.getRootNode().toTree();
+    }
+
+    @Test
+    public void storeAndLoad() throws IOException {
+        File source = getSource();
+        String expected = parseTree(source);
+
+        var cached = AstCache.load(source);
+        assertTrue(cached.isPresent());
+        assertEquals(expected, cached.get().toTree());
+        assertEquals(expected, parseTree(source));
+    }
+
+    @Test
+    public void storeLeavesOnlyCache() throws IOException {
+        File source = getSource();
+        parseTree(source);
+
+        String[] files = folder.getRoot().list();
+        Arrays.sort(files);
+        assertArrayEquals(new String[]{"Quicksort.jmm", "Quicksort.jmm.ast"}, files);
+    }
+
+    @Test
+    public void otherCompilerIsMiss() throws IOException {
+        File source = getSource();
+        String expected = parseTree(source);
+
+        // the same cache, as if written by a compiler with another grammar
+        File cache = new File(source.getPath() + ".ast");
+        byte[] bytes = Files.readAllBytes(cache.toPath());
+        ByteBuffer.wrap(bytes).putLong(0, AstCache.FINGERPRINT + 1);
+        Files.write(cache.toPath(), bytes);
+
+        assertFalse(AstCache.load(source).isPresent());
+        assertEquals(expected, parseTree(source));
+        assertTrue(AstCache.load(source).isPresent());
+    }
+
+    @Test
+    public void changedSourceIsMiss() throws IOException {
+        File source = getSource();
+        parseTree(source);
+
+        Files.writeString(source.toPath(), SpecsIo.getResource(QUICKSORT) + "\n");
+        assertFalse(AstCache.load(source).isPresent());
+    }
+
+    @Test
+    public void truncatedCacheIsMiss() throws IOException {
+        File source = getSource();
+        String expected = parseTree(source);
+
+        File cache = new File(source.getPath() + ".ast");
+        byte[] bytes = Files.readAllBytes(cache.toPath());
+        Files.write(cache.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertFalse(AstCache.load(source).isPresent());
+        assertEquals(expected, parseTree(source));
+    }
+
+    @Test
+    public void corruptCacheIsMiss() throws IOException {
+        File source = getSource();
+        String expected = parseTree(source);
+
+        // a node whose hierarchy has a negative size, after a header that still matches the source
+        File cache = new File(source.getPath() + ".ast");
+        byte[] header = Arrays.copyOf(Files.readAllBytes(cache.toPath()), HEADER_SIZE);
+        byte[] node = {0x4A, 0x4D, 0x4D, 0x42, 0x01, 0x00, 0x01, 'A', (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+        byte[] bytes = Arrays.copyOf(header, HEADER_SIZE + node.length);
+        System.arraycopy(node, 0, bytes, HEADER_SIZE, node.length);
+        Files.write(cache.toPath(), bytes);
+
+        assertFalse(AstCache.load(source).isPresent());
+        assertEquals(expected, parseTree(source));
+    }
+}
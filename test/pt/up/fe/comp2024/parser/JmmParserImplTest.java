@@ -0,0 +1,89 @@
+package pt.up.fe.comp2024.parser;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class JmmParserImplTest {
+
+    private static final String QUICKSORT = "pt/up/fe/comp2024/parser/Quicksort.jmm";
+
+    private static String parseTree(String code, Map<String, String> config) {
+        var result = new JmmParserImpl().parse(code, "program", config);
+        TestUtils.noErrors(result.getReports());
+        return result.getRootNode().toTree();
+    }
+
+    @Test
+    public void flushDfaWhileParsingInParallel() throws Exception {
+        String code = SpecsIo.getResource(QUICKSORT);
+        String expected = parseTree(code, new HashMap<>());
+
+        Map<String, String> config = new HashMap<>();
+        config.put("dfaFlush", "1");
+
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<String>> parses = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                parses.add(() -> parseTree(code, config));
+            }
+
+            for (Future<String> tree : executor.invokeAll(parses)) {
+                assertEquals(expected, tree.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void flushReplacesContextCache() {
+        String code = SpecsIo.getResource(QUICKSORT);
+        String expected = parseTree(code, new HashMap<>());
+        var contexts = JmmParserImpl.getParserContexts();
+        assertTrue("No prediction context was cached", contexts.size() > 0);
+
+        Map<String, String> config = new HashMap<>();
+        config.put("dfaFlush", "1");
+        assertEquals(expected, parseTree(code, config));
+
+        // the contexts of the cleared DFAs are dropped with them
+        assertNotSame(contexts, JmmParserImpl.getParserContexts());
+    }
+
+    @Test
+    public void syntaxErrorIsReportedByLLParse() {
+        var code = """
+                class Broken {
+                    public int f(int a) {
+                        a = a + ;
+                        return a;
+                    }
+                }""";
+
+        var result = new JmmParserImpl().parse(code, "program", new HashMap<>());
+        TestUtils.mustFail(result.getReports());
+
+        // the SLL parse gives up at the error, and the LL parse reports it where it is
+        assertEquals(1, result.getReports().size());
+        var report = result.getReports().get(0);
+        assertEquals(Stage.SYNTATIC, report.getStage());
+        assertEquals(3, report.getLine());
+        assertEquals(16, report.getColumn());
+        assertTrue(report.getMessage().startsWith("mismatched input ';'"));
+    }
+}
@@ -0,0 +1,68 @@
+package pt.up.fe.comp2024.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+
+public class MappedCharStreamTest {
+
+    private static final String QUICKSORT = "pt/up/fe/comp2024/parser/Quicksort.jmm";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File getSource(String code) throws IOException {
+        File source = folder.newFile("Quicksort.jmm");
+        Files.writeString(source.toPath(), code);
+        return source;
+    }
+
+    @Test
+    public void readsLikeStringStream() throws IOException {
+        String code = "class A {}\n";
+        CharStream mapped = new MappedCharStream(getSource(code));
+        CharStream string = CharStreams.fromString(code);
+
+        assertEquals(string.size(), mapped.size());
+        for (int i = 0; i < code.length(); i++) {
+            assertEquals(string.LA(1), mapped.LA(1));
+            mapped.consume();
+            string.consume();
+        }
+        assertEquals(IntStream.EOF, mapped.LA(1));
+
+        mapped.seek(6);
+        assertEquals('A', mapped.LA(1));
+        assertEquals("class A", mapped.getText(Interval.of(0, 6)));
+    }
+
+    @Test
+    public void parseFile() throws IOException {
+        String code = SpecsIo.getResource(QUICKSORT);
+
+        var fromString = new JmmParserImpl().parse(code, "program", new HashMap<>());
+        var fromFile = new JmmParserImpl().parse(getSource(code), new HashMap<>());
+        TestUtils.noErrors(fromFile.getReports());
+
+        assertEquals(fromString.getRootNode().toTree(), fromFile.getRootNode().toTree());
+    }
+
+    @Test
+    public void missingFile() {
+        var result = new JmmParserImpl().parse(new File(folder.getRoot(), "Missing.jmm"), new HashMap<>());
+        TestUtils.mustFail(result.getReports());
+    }
+}
@@ -0,0 +1,29 @@
+package pt.up.fe.comp2024.symboltable;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp2024.ast.TypeUtils;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+public class ClassSignatureTest {
+
+    @Test
+    public void overloadsReturningEqualTypes() {
+        // once the pool of array types is full, equal types are no longer the same object
+        for (int i = 0; i < 1024; i++) {
+            TypeUtils.getType("Filler" + i, true);
+        }
+        assertNotSame(TypeUtils.getType("Unpooled", true), TypeUtils.getType("Unpooled", true));
+
+        var methods = List.of(
+                new ClassSignature.Member("make", "(I)[Lfoo/Unpooled;", true),
+                new ClassSignature.Member("make", "(Z)[Lfoo/Unpooled;", true));
+        var signature = new ClassSignature("foo.Factory", "", methods, List.of());
+
+        assertEquals(new Type("Unpooled", true), signature.getReturnType("make", 1).orElseThrow());
+    }
+}
@@ -0,0 +1,62 @@
+package pt.up.fe.comp2024.symboltable;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.up.fe.comp2024.ast.TypeUtils;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ImportResolverTest {
+
+    private static final List<File> CLASSPATH = List.of(new File("libs-jmm/compiled"));
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void resolveFromClassFiles() {
+        var resolver = new ImportResolver(CLASSPATH, SignatureIndex.inMemory());
+
+        var io = resolver.resolve("io").orElseThrow();
+        assertEquals(3, io.getMethods("println", 1).size());
+        assertTrue(io.getMethods("println", 1).stream().allMatch(ClassSignature.Member::isStatic));
+
+        var mathUtils = resolver.resolve("MathUtils").orElseThrow();
+        assertEquals(TypeUtils.INT_TYPE, mathUtils.getReturnType("random", 2).orElseThrow());
+
+        assertFalse(resolver.resolve("Missing").isPresent());
+    }
+
+    @Test
+    public void resolveFromIndex() {
+        File file = new File(folder.getRoot(), "signatures.idx");
+
+        var resolver = new ImportResolver(CLASSPATH, SignatureIndex.load(file));
+        resolver.resolve("MathUtils").orElseThrow();
+        resolver.save();
+
+        String classpath = CLASSPATH.get(0).getAbsolutePath();
+        var indexed = SignatureIndex.load(file).get(classpath, "MathUtils").orElseThrow();
+        assertEquals(TypeUtils.INT_TYPE, indexed.getReturnType("random", 2).orElseThrow());
+    }
+
+    @Test
+    public void indexKeptApartByClasspath() {
+        File file = new File(folder.getRoot(), "signatures.idx");
+
+        var resolver = new ImportResolver(CLASSPATH, SignatureIndex.load(file));
+        resolver.resolve("MathUtils").orElseThrow();
+        resolver.save();
+
+        // the same index with another classpath, where the class doesn't exist
+        var other = new ImportResolver(List.of(folder.getRoot()), SignatureIndex.load(file));
+        assertFalse(other.resolve("MathUtils").isPresent());
+        assertFalse(other.resolveClass("MathUtils").isPresent());
+    }
+}
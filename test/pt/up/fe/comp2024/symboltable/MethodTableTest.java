@@ -0,0 +1,99 @@
+package pt.up.fe.comp2024.symboltable;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp2024.ast.Kind;
+import pt.up.fe.comp2024.ast.TypeUtils;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MethodTableTest {
+
+    private static final String QUICKSORT = "pt/up/fe/comp2024/symboltable/QuicksortOverloads.jmm";
+
+    private static MethodTable getMethodTable(String resource) {
+        var result = TestUtils.analyse(SpecsIo.getResource(resource));
+        TestUtils.noErrors(result);
+        return ((JmmSymbolTable) result.getSymbolTable()).getMethodTable();
+    }
+
+    @Test
+    public void overloadsAreKeptApart() {
+        var methods = getMethodTable(QUICKSORT);
+
+        assertEquals(2, methods.getOverloads("quicksort").size());
+        assertTrue(methods.get("quicksort(int[])").isPresent());
+        assertTrue(methods.get("quicksort(int[], int, int)").isPresent());
+        assertTrue(methods.getDuplicates().isEmpty());
+    }
+
+    @Test
+    public void signaturesKeptByDeclaration() {
+        var result = TestUtils.analyse(SpecsIo.getResource(QUICKSORT));
+        TestUtils.noErrors(result);
+        var table = (JmmSymbolTable) result.getSymbolTable();
+
+        for (var methodDecl : result.getRootNode().getDescendants(Kind.METHOD_DECL)) {
+            var method = table.getMethodTable().get(methodDecl).orElseThrow();
+            assertSame(methodDecl, method.getDeclaration());
+            assertEquals(method.getSignature(), MethodTable.getSignature(methodDecl, table));
+
+            // nothing is added to the node, where it would show in dumps of the AST and in its cache
+            assertFalse(methodDecl.hasAttribute("methodSignature"));
+        }
+    }
+
+    @Test
+    public void resolveByArity() {
+        var methods = getMethodTable(QUICKSORT);
+
+        var method = methods.resolve("quicksort", 3, () -> {
+            throw new AssertionError("Arguments typed while the arity decides");
+        });
+        assertEquals("quicksort(int[], int, int)", method.orElseThrow().getSignature());
+    }
+
+    @Test
+    public void resolveByArgumentTypes() {
+        var methods = getMethodTable(QUICKSORT);
+
+        var method = methods.resolve("printL", 1, () -> List.of(TypeUtils.BOOL_TYPE));
+        assertEquals("printL(boolean)", method.orElseThrow().getSignature());
+        method = methods.resolve("printL", 1, () -> List.of(TypeUtils.INT_ARRAY_TYPE));
+        assertEquals("printL(int[])", method.orElseThrow().getSignature());
+    }
+
+    @Test
+    public void duplicateSignature() {
+        var code = """
+                class Dup {
+                    public int f(int a) { return a; }
+                    public int f(int b) { return b; }
+                    public static void main(String[] args) { }
+                }""";
+
+        var result = TestUtils.analyse(code);
+        TestUtils.mustFail(result);
+        assertTrue(result.getReports().stream().anyMatch(report -> report.getMessage().equals("Duplicate method: f(int)")));
+    }
+
+    @Test
+    public void callOverloads() {
+        var expected = "32\n12\n3\n7";
+
+        Map<String, String> config = new HashMap<>();
+        CpUtils.runJasmin(TestUtils.backend(SpecsIo.getResource(QUICKSORT), config), expected);
+
+        config.put("optimize", "true");
+        CpUtils.runJasmin(TestUtils.backend(SpecsIo.getResource(QUICKSORT), config), expected);
+    }
+}
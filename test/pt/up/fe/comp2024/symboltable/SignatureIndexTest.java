@@ -0,0 +1,115 @@
+package pt.up.fe.comp2024.symboltable;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SignatureIndexTest {
+
+    private static final String CLASSPATH = "/libs";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static ClassSignature getSignature(String name) {
+        var random = new ClassSignature.Member("random", "(II)I", true);
+        var seed = new ClassSignature.Member("seed", "I", false);
+        return new ClassSignature(name, "java/lang/Object", List.of(random), List.of(seed));
+    }
+
+    private File getSource() throws IOException {
+        File source = folder.newFile("MathUtils.class");
+        Files.write(source.toPath(), new byte[]{1, 2, 3});
+        return source;
+    }
+
+    @Test
+    public void storeAndLoad() throws IOException {
+        File source = getSource();
+        File file = new File(folder.getRoot(), "signatures.idx");
+
+        var index = SignatureIndex.load(file);
+        index.put(CLASSPATH, "MathUtils", source, getSignature("MathUtils"));
+        index.store();
+
+        var signature = SignatureIndex.load(file).get(CLASSPATH, "MathUtils");
+        assertTrue(signature.isPresent());
+        assertEquals("java/lang/Object", signature.get().getSuperName());
+        assertEquals(1, signature.get().getMethods("random", 2).size());
+        assertTrue(signature.get().getMethods().get(0).isStatic());
+        assertEquals("I", signature.get().getFields().get(0).getDescriptor());
+    }
+
+    @Test
+    public void storeWhileLoaded() throws IOException {
+        File source = getSource();
+        File file = new File(folder.getRoot(), "signatures.idx");
+
+        var first = SignatureIndex.load(file);
+        first.put(CLASSPATH, "MathUtils", source, getSignature("MathUtils"));
+        first.store();
+
+        // replacing the file of an index in use
+        var second = SignatureIndex.load(file);
+        second.put(CLASSPATH, "Other", source, getSignature("Other"));
+        second.store();
+
+        assertTrue(second.get(CLASSPATH, "MathUtils").isPresent());
+        assertTrue(SignatureIndex.load(file).get(CLASSPATH, "Other").isPresent());
+    }
+
+    @Test
+    public void otherClasspathIsIgnored() throws IOException {
+        File source = getSource();
+        File file = new File(folder.getRoot(), "signatures.idx");
+
+        var index = SignatureIndex.load(file);
+        index.put(CLASSPATH, "MathUtils", source, getSignature("MathUtils"));
+        index.store();
+
+        var loaded = SignatureIndex.load(file);
+        assertFalse(loaded.get("/other", "MathUtils").isPresent());
+        assertFalse(loaded.getSource("/other", "MathUtils").isPresent());
+        assertTrue(loaded.get(CLASSPATH, "MathUtils").isPresent());
+    }
+
+    @Test
+    public void changedSourceIsIgnored() throws IOException {
+        File source = getSource();
+        File file = new File(folder.getRoot(), "signatures.idx");
+
+        var index = SignatureIndex.load(file);
+        index.put(CLASSPATH, "MathUtils", source, getSignature("MathUtils"));
+        index.store();
+
+        Files.write(source.toPath(), new byte[]{1, 2, 3, 4});
+        assertFalse(SignatureIndex.load(file).get(CLASSPATH, "MathUtils").isPresent());
+    }
+
+    @Test
+    public void corruptFileIsEmpty() throws IOException {
+        File source = getSource();
+        File file = new File(folder.getRoot(), "signatures.idx");
+
+        var index = SignatureIndex.load(file);
+        index.put(CLASSPATH, "MathUtils", source, getSignature("MathUtils"));
+        index.store();
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 5));
+        assertFalse(SignatureIndex.load(file).get(CLASSPATH, "MathUtils").isPresent());
+
+        Files.write(file.toPath(), new byte[]{'n', 'o', 'p', 'e'});
+        assertFalse(SignatureIndex.load(file).get(CLASSPATH, "MathUtils").isPresent());
+    }
+}